@@ -0,0 +1,112 @@
+package com.example.apiservice2.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+
+/**
+ * Downstream response bodies kept per user, audience and path with their validators (ETag and
+ * Last-Modified), so the next call for the same user sends them back and reuses the body on a 304.
+ * The downstream still authenticates every request, so a 304 never skips its access check; entries
+ * only save transferring and rebuilding the body.
+ */
+public class DownstreamResponseCache {
+
+    /**
+     * A cached body and the validators to revalidate it with; either validator may be null.
+     */
+    public record Entry(byte[] body, String etag, String lastModified) {
+    }
+
+    private record Key(String user, String audience, String path) {
+    }
+
+    private final Cache<Key, Entry> entries;
+    private final int maxEntrySize;
+    private final MeterRegistry meterRegistry;
+
+    public DownstreamResponseCache(long maximumWeight, Duration idleTimeout, int maxEntrySize, MeterRegistry meterRegistry) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Key key, Entry entry) -> entry.body().length)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        this.maxEntrySize = maxEntrySize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Entry get(String user, String audience, String path) {
+        return user != null ? entries.getIfPresent(new Key(user, audience, path)) : null;
+    }
+
+    /**
+     * Adds the validators of a cached entry, if any, turning the request into a conditional one.
+     */
+    public static void addValidators(HttpHeaders headers, Entry cached) {
+        if (cached == null) {
+            return;
+        }
+        if (cached.etag() != null) {
+            headers.setIfNoneMatch(cached.etag());
+        }
+        if (cached.lastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+        }
+    }
+
+    public void put(String user, String audience, String path, HttpHeaders headers, byte[] body) {
+        if (cacheable(user, headers) && body.length <= maxEntrySize) {
+            entries.put(new Key(user, audience, path), new Entry(body, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED)));
+        }
+    }
+
+    /**
+     * Passes a streamed body through unchanged while keeping a copy, stored once the body completes
+     * within max-entry-size. The buffers themselves are neither consumed nor retained.
+     */
+    public Flux<DataBuffer> tee(String user, String audience, String path, HttpHeaders headers, Flux<DataBuffer> body) {
+        if (!cacheable(user, headers)) {
+            return body;
+        }
+        return Flux.defer(() -> {
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            return body
+                    .doOnNext(buffer -> {
+                        if (copy.size() <= maxEntrySize) {
+                            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                                iterator.forEachRemaining(bytes -> {
+                                    byte[] chunk = new byte[bytes.remaining()];
+                                    bytes.get(chunk);
+                                    copy.write(chunk, 0, chunk.length);
+                                });
+                            }
+                        }
+                    })
+                    .doOnComplete(() -> put(user, audience, path, headers, copy.toByteArray()));
+        });
+    }
+
+    public void recordRevalidation(String audience, boolean notModified) {
+        Counter.builder("obo.downstream.cache.revalidations")
+                .description("Conditional downstream requests by result (not-modified reused the cached body)")
+                .tag("audience", audience)
+                .tag("result", notModified ? "not-modified" : "modified")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // Validators to revalidate with, and nothing forbidding a (private) copy
+    private static boolean cacheable(String user, HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return user != null
+                && (headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null)
+                && (cacheControl == null || !cacheControl.contains("no-store"));
+    }
+}
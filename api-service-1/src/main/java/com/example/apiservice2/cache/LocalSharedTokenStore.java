@@ -0,0 +1,57 @@
+package com.example.apiservice2.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM stand-in for a shared store, for tests and single-node runs. Caches built on the same
+ * instance behave like replicas sharing one store, including invalidation broadcasts.
+ */
+public class LocalSharedTokenStore implements SharedTokenStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Mono<byte[]> get(String id) {
+        return Mono.fromSupplier(() -> {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt().isBefore(Instant.now())) {
+                entries.remove(id, entry);
+                return null;
+            }
+            return entry.value();
+        });
+    }
+
+    @Override
+    public Mono<Void> put(String id, byte[] value, Duration ttl) {
+        return Mono.fromRunnable(() -> entries.put(id, new Entry(value, Instant.now().plus(ttl))));
+    }
+
+    @Override
+    public Mono<Void> invalidate(String id) {
+        return Mono.fromRunnable(() -> {
+            entries.remove(id);
+            listeners.forEach(listener -> listener.accept(id));
+        });
+    }
+
+    @Override
+    public void onInvalidation(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private record Entry(byte[] value, Instant expiresAt) {
+    }
+}
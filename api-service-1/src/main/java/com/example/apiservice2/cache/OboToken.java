@@ -0,0 +1,16 @@
+package com.example.apiservice2.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An exchanged access token and its lifetime. {@code refreshable} is false when the lifetime
+ * was capped by the user token's exp, since re-exchanging the same user token can't extend it.
+ */
+public record OboToken(String accessToken, Instant issuedAt, Instant expiresAt, boolean refreshable) {
+
+    public boolean isPastFractionOfLifetime(double fraction, Instant now) {
+        Duration lifetime = Duration.between(issuedAt, expiresAt);
+        return now.isAfter(issuedAt.plusMillis((long) (lifetime.toMillis() * fraction)));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.apiservice2.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Holds resolved OBO access tokens (not the cold {@link Mono} that produces them).
+ * Concurrent lookups for the same key share one in-flight exchange.
+ * <p>
+ * With refresh-ahead enabled, a hit on a token past {@code refreshAheadFraction} of its lifetime
+ * is returned as-is and a single background exchange replaces it before it expires.
+ * <p>
+ * With a fallback store, every exchanged token is also kept until (nearly) its real expiry, so
+ * callers can still be served while the token endpoint is unavailable.
+ * <p>
+ * With a {@link SharedTokenTier}, a local miss is looked up there before exchanging, exchanged
+ * tokens are written there for other replicas, and invalidations reach every replica.
+ */
+public class OboTokenCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(OboTokenCache.class);
+
+    private final AsyncCache<OboTokenKey, OboToken> tokens;
+    private final Cache<OboTokenKey, OboToken> lastKnown;
+    private final SharedTokenTier shared;
+    private final double refreshAheadFraction;
+    private final Set<OboTokenKey> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public OboTokenCache(Caffeine<OboTokenKey, OboToken> caffeine) {
+        this(caffeine, 0);
+    }
+
+    public OboTokenCache(Caffeine<OboTokenKey, OboToken> caffeine, double refreshAheadFraction) {
+        this(caffeine, refreshAheadFraction, null);
+    }
+
+    public OboTokenCache(Caffeine<OboTokenKey, OboToken> caffeine, double refreshAheadFraction,
+                         Caffeine<OboTokenKey, OboToken> fallbackCaffeine) {
+        this(caffeine, refreshAheadFraction, fallbackCaffeine, null);
+    }
+
+    public OboTokenCache(Caffeine<OboTokenKey, OboToken> caffeine, double refreshAheadFraction,
+                         Caffeine<OboTokenKey, OboToken> fallbackCaffeine, SharedTokenTier shared) {
+        this.tokens = caffeine.recordStats().buildAsync();
+        this.refreshAheadFraction = refreshAheadFraction;
+        this.lastKnown = fallbackCaffeine != null ? fallbackCaffeine.build() : null;
+        this.shared = shared;
+        if (shared != null) {
+            shared.onInvalidation(this::invalidateLocal);
+        }
+    }
+
+    public Mono<OboToken> get(OboTokenKey key, Function<OboTokenKey, Mono<OboToken>> exchange) {
+        // suppressCancel: one caller going away must not cancel the exchange other callers are waiting on
+        return Mono.fromFuture(() -> tokens.get(key, (k, executor) -> load(k, exchange, true)), true)
+                .doOnNext(token -> refreshAheadIfDue(key, token, exchange));
+    }
+
+    // A still-valid token from an earlier exchange, for when a new exchange cannot be made
+    public Optional<OboToken> fallback(OboTokenKey key) {
+        OboToken token = lastKnown != null ? lastKnown.getIfPresent(key) : null;
+        if (token == null) {
+            return Optional.empty();
+        }
+        fallbacks.incrementAndGet();
+        return Optional.of(token);
+    }
+
+    // Drops the token here and, with a shared tier, in the shared store and on every other replica
+    public void invalidate(OboTokenKey key) {
+        invalidateLocal(key);
+        if (shared != null) {
+            shared.invalidate(key);
+        }
+    }
+
+    private void invalidateLocal(OboTokenKey key) {
+        tokens.synchronous().invalidate(key);
+        if (lastKnown != null) {
+            lastKnown.invalidate(key);
+        }
+    }
+
+    public Stats stats() {
+        CacheStats stats = tokens.synchronous().stats();
+        return new Stats(stats.hitCount(), stats.missCount(), inFlight.get(), tokens.synchronous().estimatedSize());
+    }
+
+    private CompletableFuture<OboToken> load(OboTokenKey key, Function<OboTokenKey, Mono<OboToken>> exchange,
+                                             boolean readShared) {
+        inFlight.incrementAndGet();
+        Mono<OboToken> source = exchange.apply(key);
+        if (shared != null) {
+            Mono<OboToken> exchangeAndShare = source.doOnNext(token -> shared.put(key, token));
+            // A refresh must not read back the token it is replacing
+            source = readShared ? shared.get(key).switchIfEmpty(exchangeAndShare) : exchangeAndShare;
+        }
+        return source
+                .toFuture()
+                .whenComplete((token, error) -> {
+                    inFlight.decrementAndGet();
+                    if (token != null && lastKnown != null) {
+                        lastKnown.put(key, token);
+                    }
+                });
+    }
+
+    private void refreshAheadIfDue(OboTokenKey key, OboToken token,
+                                   Function<OboTokenKey, Mono<OboToken>> exchange) {
+        if (refreshAheadFraction <= 0 || refreshAheadFraction >= 1 || !token.refreshable()
+                || !token.isPastFractionOfLifetime(refreshAheadFraction, Instant.now())
+                || !refreshing.add(key)) {
+            return;
+        }
+
+        logger.debug("Refreshing OBO token ahead of expiry for audience: {}", key.audience());
+        refreshes.incrementAndGet();
+        Mono.fromFuture(load(key, exchange, false))
+                .doFinally(signal -> refreshing.remove(key))
+                .subscribe(
+                        refreshed -> tokens.put(key, CompletableFuture.completedFuture(refreshed)),
+                        error -> {
+                            // Keep serving the current token; the next hit retries until it expires
+                            refreshFailures.incrementAndGet();
+                            logger.warn("Refresh-ahead token exchange failed for audience: {}", key.audience(), error);
+                        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("obo.token.cache.requests", this, cache -> cache.stats().hits())
+                .tag("result", "hit")
+                .description("OBO token lookups served from the cache or an in-flight exchange")
+                .register(registry);
+        FunctionCounter.builder("obo.token.cache.requests", this, cache -> cache.stats().misses())
+                .tag("result", "miss")
+                .description("OBO token lookups that started a token exchange")
+                .register(registry);
+        FunctionCounter.builder("obo.token.cache.refreshes", refreshes, AtomicLong::get)
+                .tag("outcome", "started")
+                .description("Background refresh-ahead token exchanges")
+                .register(registry);
+        FunctionCounter.builder("obo.token.cache.refreshes", refreshFailures, AtomicLong::get)
+                .tag("outcome", "failed")
+                .description("Background refresh-ahead token exchanges")
+                .register(registry);
+        FunctionCounter.builder("obo.token.cache.fallbacks", fallbacks, AtomicLong::get)
+                .description("Lookups served a still-valid earlier token because the exchange was unavailable")
+                .register(registry);
+        if (shared != null) {
+            FunctionCounter.builder("obo.token.cache.shared.requests", shared.hits, AtomicLong::get)
+                    .tag("result", "hit")
+                    .description("Local misses served from the shared tier")
+                    .register(registry);
+            FunctionCounter.builder("obo.token.cache.shared.requests", shared.misses, AtomicLong::get)
+                    .tag("result", "miss")
+                    .description("Local misses not in the shared tier, which started a token exchange")
+                    .register(registry);
+            FunctionCounter.builder("obo.token.cache.shared.requests", shared.errors, AtomicLong::get)
+                    .tag("result", "error")
+                    .description("Shared-tier reads, writes and invalidations that failed or timed out")
+                    .register(registry);
+        }
+        Gauge.builder("obo.token.cache.in-flight", inFlight, AtomicInteger::get)
+                .description("Token exchanges currently in progress")
+                .register(registry);
+        Gauge.builder("obo.token.cache.size", this, cache -> cache.stats().size())
+                .description("Estimated number of cached OBO tokens")
+                .register(registry);
+    }
+
+    public record Stats(long hits, long misses, int inFlight, long size) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.apiservice2.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Expires each cached OBO token {@code skew} before its own expiry, so a token is never
+ * handed to a downstream call with only a few seconds of validity left.
+ */
+public class OboTokenExpiry implements Expiry<OboTokenKey, OboToken> {
+
+    private final Duration skew;
+
+    public OboTokenExpiry(Duration skew) {
+        this.skew = skew;
+    }
+
+    @Override
+    public long expireAfterCreate(OboTokenKey key, OboToken token, long currentTime) {
+        return remainingNanos(token);
+    }
+
+    @Override
+    public long expireAfterUpdate(OboTokenKey key, OboToken token, long currentTime, long currentDuration) {
+        return remainingNanos(token);
+    }
+
+    @Override
+    public long expireAfterRead(OboTokenKey key, OboToken token, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    private long remainingNanos(OboToken token) {
+        Duration remaining = Duration.between(Instant.now(), token.expiresAt().minus(skew));
+        return remaining.isNegative() ? 0 : remaining.toNanos();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.apiservice2.cache;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Cache key for an exchanged token: a SHA-256 digest identifying the subject token plus the
+ * audience. Keeps the raw 1-2 KB JWT out of the cache and makes hashing/equality fixed-cost.
+ */
+public final class OboTokenKey {
+
+    private final TokenDigest subject;
+    private final String audience;
+    private final int hash;
+
+    private OboTokenKey(TokenDigest subject, String audience) {
+        this.subject = subject;
+        this.audience = audience;
+        this.hash = 31 * subject.hashCode() + audience.hashCode();
+    }
+
+    public static OboTokenKey of(Jwt subject, String audience) {
+        // sub + jti + sid identifies a Keycloak access token as well as its full text, at a fraction of the bytes
+        String jti = subject.getId();
+        String identity = jti != null
+                ? subject.getSubject() + '\n' + jti + '\n' + subject.getClaimAsString("sid")
+                : subject.getTokenValue();
+        return new OboTokenKey(TokenDigest.of(identity), audience.intern());
+    }
+
+    // Stable across replicas ("<digest>:<audience>"), used as the shared-store key
+    public static OboTokenKey fromId(String id) {
+        int separator = id.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Not an OBO token key id: " + id);
+        }
+        return new OboTokenKey(TokenDigest.fromEncoded(id.substring(0, separator)), id.substring(separator + 1).intern());
+    }
+
+    public String id() {
+        return subject.encoded() + ':' + audience;
+    }
+
+    public String audience() {
+        return audience;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OboTokenKey other)) return false;
+        return hash == other.hash && audience.equals(other.audience) && subject.equals(other.subject);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "OboTokenKey[audience=" + audience + "]";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.apiservice2.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+/**
+ * Approximate retained bytes of a cache entry, so the cache can be bounded by memory rather than
+ * entry count. Tokens are ASCII, which compact strings store at one byte per char.
+ */
+public class OboTokenWeigher implements Weigher<OboTokenKey, OboToken> {
+
+    // Object headers, references and the Instant fields, rounded up
+    private static final int KEY_OVERHEAD = 64;
+    private static final int TOKEN_OVERHEAD = 96;
+
+    @Override
+    public int weigh(OboTokenKey key, OboToken token) {
+        return KEY_OVERHEAD + TokenDigest.LENGTH + TOKEN_OVERHEAD + token.accessToken().length();
+    }
+}
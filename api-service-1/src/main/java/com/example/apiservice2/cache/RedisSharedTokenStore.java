@@ -0,0 +1,73 @@
+package com.example.apiservice2.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Redis-backed shared store. Entries expire with the token (SET PX) and invalidations are
+ * broadcast on a pub/sub channel that every replica listens to.
+ */
+public class RedisSharedTokenStore implements SharedTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisSharedTokenStore.class);
+
+    private static final String KEY_PREFIX = "obo-token:";
+    private static final String INVALIDATION_CHANNEL = "obo-token-invalidations";
+
+    private final ReactiveRedisTemplate<String, byte[]> redis;
+    private Disposable subscription;
+
+    public RedisSharedTokenStore(ReactiveRedisConnectionFactory connectionFactory) {
+        this.redis = new ReactiveRedisTemplate<>(connectionFactory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.string())
+                        .value(RedisSerializer.byteArray())
+                        .build());
+    }
+
+    @Override
+    public Mono<byte[]> get(String id) {
+        return redis.opsForValue().get(KEY_PREFIX + id);
+    }
+
+    @Override
+    public Mono<Void> put(String id, byte[] value, Duration ttl) {
+        return redis.opsForValue().set(KEY_PREFIX + id, value, ttl).then();
+    }
+
+    @Override
+    public Mono<Void> invalidate(String id) {
+        return redis.delete(KEY_PREFIX + id)
+                .then(redis.convertAndSend(INVALIDATION_CHANNEL, id.getBytes(StandardCharsets.UTF_8)))
+                .then();
+    }
+
+    @Override
+    public synchronized void onInvalidation(Consumer<String> listener) {
+        if (subscription != null) {
+            throw new IllegalStateException("Only one invalidation listener is supported");
+        }
+        // Re-subscribes after a Redis outage; invalidations sent meanwhile are lost, entries still expire
+        subscription = redis.listenToChannel(INVALIDATION_CHANNEL)
+                .map(message -> new String(message.getMessage(), StandardCharsets.UTF_8))
+                .doOnError(error -> logger.warn("Lost OBO token invalidation channel: {}", error.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(listener);
+    }
+
+    public synchronized void dispose() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.apiservice2.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Byte-level store shared by all api-service-1 replicas, behind each replica's local cache.
+ * Values arrive already encrypted; the store only keeps them until their TTL.
+ */
+public interface SharedTokenStore {
+
+    Mono<byte[]> get(String id);
+
+    Mono<Void> put(String id, byte[] value, Duration ttl);
+
+    // Removes the entry and tells every replica, including this one, to drop its local copy
+    Mono<Void> invalidate(String id);
+
+    void onInvalidation(Consumer<String> listener);
+}
@@ -0,0 +1,135 @@
+package com.example.apiservice2.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Second cache tier: OBO tokens exchanged by any replica, encrypted, in a {@link SharedTokenStore}.
+ * Best-effort throughout: a slow or failing store counts as a miss and never fails a lookup.
+ */
+public class SharedTokenTier {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedTokenTier.class);
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final SharedTokenStore store;
+    private final TokenCipher cipher;
+    private final Duration timeout;
+    private final Duration minValidity;
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+
+    public SharedTokenTier(SharedTokenStore store, TokenCipher cipher, Duration timeout, Duration minValidity) {
+        this.store = store;
+        this.cipher = cipher;
+        this.timeout = timeout;
+        this.minValidity = minValidity;
+    }
+
+    public Mono<OboToken> get(OboTokenKey key) {
+        String id = key.id();
+        return store.get(id)
+                .timeout(timeout)
+                .map(sealed -> open(sealed, id))
+                .filter(token -> token.expiresAt().minus(minValidity).isAfter(Instant.now()))
+                .doOnNext(token -> hits.incrementAndGet())
+                .switchIfEmpty(Mono.fromRunnable(misses::incrementAndGet))
+                .onErrorResume(error -> {
+                    errors.incrementAndGet();
+                    logger.warn("Shared OBO token lookup failed for audience {}: {}", key.audience(), error.toString());
+                    return Mono.empty();
+                });
+    }
+
+    public void put(OboTokenKey key, OboToken token) {
+        // Kept only while a replica may still hand it out, i.e. until minValidity before expiry
+        Duration ttl = Duration.between(Instant.now(), token.expiresAt().minus(minValidity));
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        String id = key.id();
+        byte[] sealed = cipher.encrypt(encode(token), id.getBytes(StandardCharsets.UTF_8));
+        store.put(id, sealed, ttl)
+                .timeout(timeout)
+                .subscribe(null, error -> {
+                    errors.incrementAndGet();
+                    logger.warn("Shared OBO token write failed for audience {}: {}", key.audience(), error.toString());
+                });
+    }
+
+    public void invalidate(OboTokenKey key) {
+        store.invalidate(key.id())
+                .timeout(timeout)
+                .subscribe(null, error -> {
+                    errors.incrementAndGet();
+                    logger.warn("Shared OBO token invalidation failed for audience {}: {}", key.audience(), error.toString());
+                });
+    }
+
+    public void onInvalidation(Consumer<OboTokenKey> listener) {
+        store.onInvalidation(id -> {
+            try {
+                listener.accept(OboTokenKey.fromId(id));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring malformed OBO token invalidation: {}", id);
+            }
+        });
+    }
+
+    private OboToken open(byte[] sealed, String id) {
+        try {
+            return decode(cipher.decrypt(sealed, id.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            // Wrong key (e.g. replicas configured differently) or tampered entry
+            throw new IllegalStateException("Shared OBO token failed to decrypt", e);
+        }
+    }
+
+    private static byte[] encode(OboToken token) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(token.accessToken().length() + 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(token.issuedAt().toEpochMilli());
+            out.writeLong(token.expiresAt().toEpochMilli());
+            out.writeBoolean(token.refreshable());
+            byte[] accessToken = token.accessToken().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(accessToken.length);
+            out.write(accessToken);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OboToken decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unknown shared OBO token format");
+            }
+            Instant issuedAt = Instant.ofEpochMilli(in.readLong());
+            Instant expiresAt = Instant.ofEpochMilli(in.readLong());
+            boolean refreshable = in.readBoolean();
+            String accessToken = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+            return new OboToken(accessToken, issuedAt, expiresAt, refreshable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.apiservice2.cache;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * AES-GCM for tokens at rest in the shared store. The entry's key id is bound in as associated
+ * data, so a ciphertext copied under another key fails authentication instead of decrypting.
+ */
+public final class TokenCipher {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TRANSFORMATION + " not available", e);
+        }
+    });
+
+    private final SecretKey key;
+
+    private TokenCipher(byte[] key) {
+        if (key.length != 16 && key.length != 32) {
+            throw new IllegalArgumentException("AES key must be 16 or 32 bytes, got " + key.length);
+        }
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    public static TokenCipher fromBase64Key(String base64Key) {
+        return new TokenCipher(Base64.getDecoder().decode(base64Key));
+    }
+
+    // Only usable by caches in this JVM; replicas sharing a store must be given the same key
+    public static TokenCipher withRandomKey() {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return new TokenCipher(key);
+    }
+
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(associatedData);
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(IV_LENGTH + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Token encryption failed", e);
+        }
+    }
+
+    public byte[] decrypt(byte[] sealed, byte[] associatedData) throws GeneralSecurityException {
+        if (sealed.length <= IV_LENGTH) {
+            throw new GeneralSecurityException("Sealed token too short");
+        }
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+        cipher.updateAAD(associatedData);
+        return cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    }
+}
@@ -1,23 +1,90 @@
 package com.example.apiservice2.config;
 
+import com.example.apiservice2.cache.DownstreamResponseCache;
+import com.example.apiservice2.cache.LocalSharedTokenStore;
+import com.example.apiservice2.cache.OboTokenCache;
+import com.example.apiservice2.cache.OboTokenExpiry;
+import com.example.apiservice2.cache.OboTokenWeigher;
+import com.example.apiservice2.cache.RedisSharedTokenStore;
+import com.example.apiservice2.cache.SharedTokenStore;
+import com.example.apiservice2.cache.SharedTokenTier;
+import com.example.apiservice2.cache.TokenCipher;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.util.unit.DataSize;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Optional;
 
 @Configuration
 public class CacheConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("obo-tokens");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(4, TimeUnit.MINUTES) // Cache for 4 minutes (less than token lifetime)
+    public OboTokenCache oboTokenCache(@Value("${obo.token-cache.maximum-weight:4MB}") DataSize maximumWeight,
+                                       @Value("${obo.token-cache.expiry-skew:30s}") Duration expirySkew,
+                                       @Value("${obo.token-cache.refresh-ahead-fraction:0.75}") double refreshAheadFraction,
+                                       @Value("${obo.token-cache.fallback-min-validity:5s}") Duration fallbackMinValidity,
+                                       Optional<SharedTokenTier> sharedTokenTier) {
+        return new OboTokenCache(Caffeine.newBuilder()
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher(new OboTokenWeigher())
+                .expireAfter(new OboTokenExpiry(expirySkew)), // Per-entry expiry from the exchanged token's lifetime
+                refreshAheadFraction,
+                Caffeine.newBuilder()
+                        .maximumWeight(maximumWeight.toBytes())
+                        .weigher(new OboTokenWeigher())
+                        .expireAfter(new OboTokenExpiry(fallbackMinValidity)),
+                sharedTokenTier.orElse(null)
         );
-        return cacheManager;
     }
-}
\ No newline at end of file
+
+    @Bean
+    @ConditionalOnProperty(name = "obo.downstream-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public DownstreamResponseCache downstreamResponseCache(@Value("${obo.downstream-cache.maximum-weight:16MB}") DataSize maximumWeight,
+                                                           @Value("${obo.downstream-cache.idle-timeout:10m}") Duration idleTimeout,
+                                                           @Value("${obo.downstream-cache.max-entry-size:64KB}") DataSize maxEntrySize,
+                                                           MeterRegistry meterRegistry) {
+        return new DownstreamResponseCache(maximumWeight.toBytes(), idleTimeout, (int) maxEntrySize.toBytes(), meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${obo.token-cache.shared.store:none}' != 'none'")
+    public SharedTokenTier sharedTokenTier(SharedTokenStore store,
+                                           @Value("${obo.token-cache.shared.store}") String storeType,
+                                           @Value("${obo.token-cache.shared.encryption-key:}") String encryptionKey,
+                                           @Value("${obo.token-cache.shared.timeout:200ms}") Duration timeout,
+                                           @Value("${obo.token-cache.expiry-skew:30s}") Duration expirySkew) {
+        TokenCipher cipher;
+        if (!encryptionKey.isBlank()) {
+            cipher = TokenCipher.fromBase64Key(encryptionKey);
+        } else if ("local".equals(storeType)) {
+            logger.warn("No obo.token-cache.shared.encryption-key set, using a random key for the local store");
+            cipher = TokenCipher.withRandomKey();
+        } else {
+            throw new IllegalStateException("obo.token-cache.shared.encryption-key is required for a shared store");
+        }
+        return new SharedTokenTier(store, cipher, timeout, expirySkew);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "obo.token-cache.shared.store", havingValue = "local")
+    public SharedTokenStore localSharedTokenStore() {
+        return new LocalSharedTokenStore();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "obo.token-cache.shared.store", havingValue = "redis")
+    public SharedTokenStore redisSharedTokenStore(ReactiveRedisConnectionFactory connectionFactory) {
+        return new RedisSharedTokenStore(connectionFactory);
+    }
+}
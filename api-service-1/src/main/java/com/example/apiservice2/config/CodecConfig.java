@@ -0,0 +1,15 @@
+package com.example.apiservice2.config;
+
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CodecConfig {
+
+    // Registered ahead of Jackson, which would otherwise try to serialize the buffers as objects
+    @Bean
+    public CodecCustomizer rawJsonBodyCodec() {
+        return configurer -> configurer.customCodecs().register(new RawJsonBodyWriter());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.apiservice2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "downstreams")
+public class DownstreamProperties {
+
+    // Used by /api/delegate and by batch targets that name no downstream
+    private String defaultService = "api-service-2";
+
+    // Keyed by downstream name, e.g. "api-service-2"
+    private Map<String, Service> services = new LinkedHashMap<>();
+
+    public String getDefaultService() { return defaultService; }
+    public void setDefaultService(String defaultService) { this.defaultService = defaultService; }
+
+    public Map<String, Service> getServices() { return services; }
+    public void setServices(Map<String, Service> services) { this.services = services; }
+
+    public static class Service {
+        private String audience;
+        private String baseUrl;
+        private String defaultPath = "/api/data";
+        // Exchange a token for this audience when the user logs in, before the first call needs it
+        private boolean prefetch = false;
+        private HttpClientProperties.Pool pool = new HttpClientProperties.Pool();
+
+        public String getAudience() { return audience; }
+        public void setAudience(String audience) { this.audience = audience; }
+
+        public String getBaseUrl() { return baseUrl; }
+        public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+
+        public String getDefaultPath() { return defaultPath; }
+        public void setDefaultPath(String defaultPath) { this.defaultPath = defaultPath; }
+
+        public boolean isPrefetch() { return prefetch; }
+        public void setPrefetch(boolean prefetch) { this.prefetch = prefetch; }
+
+        public HttpClientProperties.Pool getPool() { return pool; }
+        public void setPool(HttpClientProperties.Pool pool) { this.pool = pool; }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.apiservice2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+
+    // Keyed by destination name, e.g. "keycloak"; downstream pools are set per entry in DownstreamProperties
+    private Map<String, Pool> pools = new HashMap<>();
+
+    public Map<String, Pool> getPools() { return pools; }
+    public void setPools(Map<String, Pool> pools) { this.pools = pools; }
+
+    public Pool pool(String destination) {
+        return pools.getOrDefault(destination, new Pool());
+    }
+
+    public static class Pool {
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private boolean keepAlive = true;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        // Cleartext HTTP/2 with prior knowledge; the destination must accept it
+        private boolean h2c = false;
+        // With h2c, max-connections is replaced by this much smaller cap: each connection carries many streams
+        private int h2cMaxConnections = 4;
+        private boolean compress = false;
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+
+        public Duration getMaxLifeTime() { return maxLifeTime; }
+        public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+
+        public Duration getEvictInBackground() { return evictInBackground; }
+        public void setEvictInBackground(Duration evictInBackground) { this.evictInBackground = evictInBackground; }
+
+        public boolean isKeepAlive() { return keepAlive; }
+        public void setKeepAlive(boolean keepAlive) { this.keepAlive = keepAlive; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public Duration getResponseTimeout() { return responseTimeout; }
+        public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+
+        public boolean isH2c() { return h2c; }
+        public void setH2c(boolean h2c) { this.h2c = h2c; }
+
+        public int getH2cMaxConnections() { return h2cMaxConnections; }
+        public void setH2cMaxConnections(int h2cMaxConnections) { this.h2cMaxConnections = h2cMaxConnections; }
+
+        public boolean isCompress() { return compress; }
+        public void setCompress(boolean compress) { this.compress = compress; }
+    }
+}
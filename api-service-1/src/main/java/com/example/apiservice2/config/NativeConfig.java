@@ -0,0 +1,21 @@
+package com.example.apiservice2.config;
+
+import com.example.apiservice2.dto.BatchDelegateResult;
+import com.example.apiservice2.dto.DelegateResponse;
+import com.example.apiservice2.dto.ErrorResponse;
+import com.example.apiservice2.dto.TokenExchangeResponse;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for the AOT/native build ({@code -Pnative}) that Spring can't infer from bean definitions
+ * and controller signatures: Jackson types read by WebClient or returned behind
+ * {@code ResponseEntity<?>}/{@code Flux}, and the Caffeine classes behind the OBO token and JWT caches.
+ */
+@Configuration
+@RegisterReflectionForBinding({TokenExchangeResponse.class, DelegateResponse.class, ErrorResponse.class,
+        BatchDelegateResult.class})
+@ImportRuntimeHints(CaffeineHints.class)
+public class NativeConfig {
+}
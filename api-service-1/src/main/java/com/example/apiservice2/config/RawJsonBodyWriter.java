@@ -0,0 +1,39 @@
+package com.example.apiservice2.config;
+
+import com.example.apiservice2.dto.RawJsonBody;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link RawJsonBody}'s buffers straight to the response, with no encoder in between.
+ */
+public class RawJsonBodyWriter implements HttpMessageWriter<RawJsonBody> {
+
+    @Override
+    public List<MediaType> getWritableMediaTypes() {
+        return List.of(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
+        return RawJsonBody.class.isAssignableFrom(elementType.toClass())
+                && (mediaType == null || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType));
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends RawJsonBody> inputStream, ResolvableType elementType,
+                            @Nullable MediaType mediaType, ReactiveHttpOutputMessage message, Map<String, Object> hints) {
+        if (message.getHeaders().getContentType() == null) {
+            message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        }
+        return Mono.from(inputStream).flatMap(body -> message.writeWith(body.content()));
+    }
+}
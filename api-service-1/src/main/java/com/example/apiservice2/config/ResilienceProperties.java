@@ -0,0 +1,46 @@
+package com.example.apiservice2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Circuit breaker and bulkhead settings live under resilience4j.*; this covers timeouts and retries
+@ConfigurationProperties(prefix = "obo.resilience")
+public class ResilienceProperties {
+
+    private Duration attemptTimeout = Duration.ofSeconds(5);
+    private Retry retry = new Retry();
+
+    public Duration getAttemptTimeout() { return attemptTimeout; }
+    public void setAttemptTimeout(Duration attemptTimeout) { this.attemptTimeout = attemptTimeout; }
+
+    public Retry getRetry() { return retry; }
+    public void setRetry(Retry retry) { this.retry = retry; }
+
+    public static class Retry {
+        private int maxRetries = 2;
+        private Duration minBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private double jitter = 0.5;
+        private double budgetRatio = 0.1;
+        private double budgetMax = 10;
+
+        public int getMaxRetries() { return maxRetries; }
+        public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+
+        public Duration getMinBackoff() { return minBackoff; }
+        public void setMinBackoff(Duration minBackoff) { this.minBackoff = minBackoff; }
+
+        public Duration getMaxBackoff() { return maxBackoff; }
+        public void setMaxBackoff(Duration maxBackoff) { this.maxBackoff = maxBackoff; }
+
+        public double getJitter() { return jitter; }
+        public void setJitter(double jitter) { this.jitter = jitter; }
+
+        public double getBudgetRatio() { return budgetRatio; }
+        public void setBudgetRatio(double budgetRatio) { this.budgetRatio = budgetRatio; }
+
+        public double getBudgetMax() { return budgetMax; }
+        public void setBudgetMax(double budgetMax) { this.budgetMax = budgetMax; }
+    }
+}
@@ -1,66 +1,103 @@
 package com.example.apiservice2.config;
 
+import com.example.apiservice2.security.CachingReactiveJwtDecoder;
+import com.example.apiservice2.security.JwksKeyCache;
+import com.example.apiservice2.security.RealmRoleAuthoritiesConverter;
+import com.example.apiservice2.security.ScrapeAccess;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
-import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
-import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import reactor.core.publisher.Mono;
 
-import java.util.Collection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Configuration
-@EnableWebSecurity
-@EnableMethodSecurity(prePostEnabled = true)
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
 public class SecurityConfig {
 
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+    private String jwkSetUri;
+
+    @Value("${jwt-cache.enabled:true}")
+    private boolean jwtCacheEnabled;
+
+    @Value("${jwt-cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+
+    @Value("${jwks.refresh-interval:5m}")
+    private Duration jwksRefreshInterval;
+
+    @Value("${jwks.min-refresh-interval:5s}")
+    private Duration jwksMinRefreshInterval;
+
+    @Value("${jwks.fetch-timeout:5s}")
+    private Duration jwksFetchTimeout;
+
+    @Value("${jwks.seed-file:}")
+    private String jwksSeedFile;
+
+    @Value("${prometheus.allowed-networks:127.0.0.1/32,::1/128}")
+    private List<String> prometheusAllowedNetworks;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityWebFilterChain filterChain(ServerHttpSecurity http) {
+        ScrapeAccess scrapeAccess = new ScrapeAccess(prometheusAllowedNetworks);
         http
-                .authorizeHttpRequests(authz -> authz
-                        .requestMatchers("/actuator/health").permitAll()
-                        .anyRequest().authenticated()
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/actuator/health").permitAll()
+                        .pathMatchers("/actuator/prometheus").access((authentication, context) -> {
+                            InetSocketAddress remote = context.getExchange().getRequest().getRemoteAddress();
+                            return Mono.just(new AuthorizationDecision(remote != null && remote.getAddress() != null
+                                    && scrapeAccess.allows(remote.getAddress().getHostAddress())));
+                        })
+                        .anyExchange().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
                         .jwt(jwt -> jwt
-                                .jwtAuthenticationConverter(jwtAuthenticationConverter())
+                                .jwtAuthenticationConverter(
+                                        new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter()))
                         )
                 );
 
         return http.build();
     }
 
+    @Bean(destroyMethod = "dispose")
+    public JwksKeyCache jwksKeyCache(MeterRegistry meterRegistry) {
+        JwksKeyCache keys = new JwksKeyCache(URI.create(jwkSetUri), jwksRefreshInterval, jwksMinRefreshInterval,
+                jwksFetchTimeout, meterRegistry);
+        keys.start(jwksSeedFile.isBlank() ? null : Path.of(jwksSeedFile));
+        return keys;
+    }
+
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder(JwksKeyCache jwksKeyCache) {
+        // Known kids resolve from memory; an unknown one waits on the cache's shared fetch
+        ReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder
+                .withJwkSource(jwt -> Mono.fromFuture(jwksKeyCache.select(jwt.getHeader())).flatMapIterable(keys -> keys))
+                .build();
+        return jwtCacheEnabled ? new CachingReactiveJwtDecoder(decoder, jwtCacheMaximumSize) : decoder;
+    }
+
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
-            // Get realm roles
-            Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
-            Collection<String> realmRoles = List.of();
-            if (realmAccess != null && realmAccess.containsKey("roles")) {
-                realmRoles = (Collection<String>) realmAccess.get("roles");
-            }
-
-            // Convert to Spring Security authorities with ROLE_ prefix
-            Stream<GrantedAuthority> realmAuthorities = realmRoles.stream()
-                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
-
-            // Also include standard scope-based authorities
-            JwtGrantedAuthoritiesConverter scopeConverter = new JwtGrantedAuthoritiesConverter();
-            Collection<GrantedAuthority> scopeAuthorities = scopeConverter.convert(jwt);
-
-            // Combine both
-            return Stream.concat(realmAuthorities, scopeAuthorities.stream())
-                    .collect(Collectors.toList());
-        });
+        converter.setJwtGrantedAuthoritiesConverter(new RealmRoleAuthoritiesConverter(true));
 
         return converter;
     }
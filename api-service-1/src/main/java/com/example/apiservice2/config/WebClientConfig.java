@@ -2,15 +2,89 @@ package com.example.apiservice2.config;
 
 
 
+import com.example.apiservice2.service.Downstream;
+import com.example.apiservice2.service.DownstreamRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, DownstreamProperties.class, ResilienceProperties.class})
 public class WebClientConfig {
 
+    public static final String KEYCLOAK = "keycloak";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider keycloakConnectionProvider(HttpClientProperties properties) {
+        return connectionProvider(KEYCLOAK, properties.pool(KEYCLOAK));
+    }
+
+    // Built from Boot's WebClient.Builder so requests are observed as http.client.requests
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public WebClient keycloakWebClient(WebClient.Builder builder,
+                                       @Qualifier("keycloakConnectionProvider") ConnectionProvider connectionProvider,
+                                       HttpClientProperties properties) {
+        return webClient(builder, connectionProvider, properties.pool(KEYCLOAK));
+    }
+
+    // One pool and WebClient per configured downstream, each named after it
+    @Bean(destroyMethod = "dispose")
+    public DownstreamRegistry downstreamRegistry(WebClient.Builder builder, DownstreamProperties properties) {
+        List<Downstream> downstreams = new ArrayList<>();
+        properties.getServices().forEach((name, service) -> {
+            ConnectionProvider connectionProvider = connectionProvider(name, service.getPool());
+            downstreams.add(new Downstream(name, service.getAudience(), service.getBaseUrl(), service.getDefaultPath(),
+                    service.isPrefetch(), webClient(builder, connectionProvider, service.getPool()), connectionProvider));
+        });
+        return new DownstreamRegistry(downstreams, properties.getDefaultService());
+    }
+
+    // metrics(true) publishes reactor.netty.connection.provider.* gauges (active, idle, pending) per pool
+    private static ConnectionProvider connectionProvider(String name, HttpClientProperties.Pool pool) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(name)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictInBackground())
+                .metrics(true);
+        if (pool.isH2c()) {
+            // Without a cap, a cold burst opens a connection per request before the first one's SETTINGS arrive
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(pool.getH2cMaxConnections())
+                    .minConnections(1)
+                    .build());
+        }
+        return builder.build();
+    }
+
+    private static WebClient webClient(WebClient.Builder builder, ConnectionProvider connectionProvider,
+                                       HttpClientProperties.Pool pool) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(pool.isKeepAlive())
+                .option(ChannelOption.SO_KEEPALIVE, pool.isKeepAlive())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) pool.getConnectTimeout().toMillis())
+                .responseTimeout(pool.getResponseTimeout())
+                .compress(pool.isCompress());
+        if (pool.isH2c()) {
+            // Concurrent requests become streams on the pool's connections instead of a connection each
+            httpClient = httpClient.protocol(HttpProtocol.H2C);
+        }
+
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 }
@@ -0,0 +1,56 @@
+package com.example.apiservice2.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Frames a downstream's JSON body with the {@code /api/delegate} envelope fields, so its buffers
+ * are written straight to the response. The output matches {@link com.example.apiservice2.dto.DelegateResponse}.
+ */
+final class DelegateEnvelope {
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_CONTENT)
+            .build();
+    private static final DataBufferFactory BUFFERS = DefaultDataBufferFactory.sharedInstance;
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.US_ASCII);
+
+    private DelegateEnvelope() {}
+
+    static Flux<DataBuffer> frame(Jwt jwt, Flux<DataBuffer> body) {
+        return Flux.concat(
+                Mono.fromCallable(() -> BUFFERS.wrap(prefix(jwt))),
+                body.switchIfEmpty(Mono.fromSupplier(() -> BUFFERS.wrap(NULL))),
+                Mono.fromSupplier(() -> BUFFERS.wrap(SUFFIX)));
+    }
+
+    // Everything up to and including the "secure_data_from_api_service_2": key
+    private static byte[] prefix(Jwt jwt) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("service", "api-service-1");
+            generator.writeStringField("message", "Successfully delegated call to API Service 2");
+            generator.writeStringField("user", jwt.getClaimAsString("preferred_username"));
+            generator.writeStringField("processed_at", Instant.now().toString());
+            generator.writeStringField("original_token_azp", jwt.getClaimAsString("azp"));
+            generator.writeFieldName("secure_data_from_api_service_2");
+        }
+        // The generator only writes the ':' along with a value, and the value is the downstream body
+        out.write(':');
+        return out.toByteArray();
+    }
+}
@@ -1,19 +1,39 @@
 package com.example.apiservice2.controller;
 
-import com.example.apiservice2.service.ApiService2Client;
+import com.example.apiservice2.dto.BatchDelegateRequest;
+import com.example.apiservice2.dto.BatchDelegateResult;
+import com.example.apiservice2.dto.DelegateResponse;
+import com.example.apiservice2.dto.ErrorResponse;
+import com.example.apiservice2.dto.ProfileResponse;
+import com.example.apiservice2.dto.RawJsonBody;
+import com.example.apiservice2.resilience.OutboundResilience;
+import com.example.apiservice2.resilience.ServerFailures;
+import com.example.apiservice2.service.BatchDelegateService;
+import com.example.apiservice2.service.Downstream;
+import com.example.apiservice2.service.DownstreamCallException;
+import com.example.apiservice2.service.DownstreamClient;
+import com.example.apiservice2.service.DownstreamRegistry;
 import com.example.apiservice2.service.OnBehalfOfService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -23,47 +43,105 @@ public class ProfileController {
     private static final Logger logger = LoggerFactory.getLogger(ProfileController.class);
 
     private final OnBehalfOfService onBehalfOfService;
-    private final ApiService2Client apiService2Client;
+    private final DownstreamRegistry downstreamRegistry;
+    private final DownstreamClient downstreamClient;
+    private final BatchDelegateService batchDelegateService;
+    private final OutboundResilience resilience;
+    private final boolean passThrough;
 
-    public ProfileController(OnBehalfOfService onBehalfOfService, ApiService2Client apiService2Client) {
+    public ProfileController(OnBehalfOfService onBehalfOfService, DownstreamRegistry downstreamRegistry,
+                             DownstreamClient downstreamClient, BatchDelegateService batchDelegateService,
+                             OutboundResilience resilience,
+                             @Value("${obo.delegate.pass-through:true}") boolean passThrough) {
         this.onBehalfOfService = onBehalfOfService;
-        this.apiService2Client = apiService2Client;
+        this.downstreamRegistry = downstreamRegistry;
+        this.downstreamClient = downstreamClient;
+        this.batchDelegateService = batchDelegateService;
+        this.resilience = resilience;
+        this.passThrough = passThrough;
     }
 
     @GetMapping("/delegate")
-    public Mono<ResponseEntity<Map<String, Object>>> delegateCall(@AuthenticationPrincipal Jwt jwt) {
+    public Mono<ResponseEntity<?>> delegateCall(@AuthenticationPrincipal Jwt jwt) {
         logger.info("Received delegate call for user: {}", jwt.getClaimAsString("preferred_username"));
 
-        String userToken = jwt.getTokenValue();
-        String audience = "api-service-2-client";
-
-        return onBehalfOfService.exchangeToken(userToken, audience)
-                .flatMap(apiService2Client::callSecureDataEndpoint)
-                .map(secureData -> {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("service", "api-service-1");
-                    response.put("message", "Successfully delegated call to API Service 2");
-                    response.put("user", jwt.getClaimAsString("preferred_username"));
-                    response.put("processed_at", Instant.now());
-                    response.put("original_token_azp", jwt.getClaimAsString("azp"));
-                    response.put("secure_data_from_api_service_2", secureData);
-
-                    return ResponseEntity.ok(response);
-                })
+        Downstream downstream = downstreamRegistry.defaultDownstream();
+        Mono<String> accessToken = onBehalfOfService.exchangeToken(jwt, downstream.audience());
+
+        Mono<ResponseEntity<?>> response = passThrough
+                // Downstream buffers go straight into our response, framed by the envelope fields
+                ? accessToken.flatMap(token -> downstreamClient.stream(downstream, jwt.getSubject(), token))
+                        .map(body -> ResponseEntity.ok(new RawJsonBody(DelegateEnvelope.frame(jwt, body))))
+                : accessToken.flatMap(token -> downstreamClient.call(downstream, jwt.getSubject(), token))
+                        .map(secureData -> ResponseEntity.ok(new DelegateResponse(
+                                "api-service-1",
+                                "Successfully delegated call to API Service 2",
+                                jwt.getClaimAsString("preferred_username"),
+                                Instant.now(),
+                                jwt.getClaimAsString("azp"),
+                                secureData)));
+
+        return response
+                .doOnError(DownstreamCallException.class, error -> invalidateIfRejected(error, jwt, downstream))
                 .doOnError(error -> logger.error("Error in delegate call", error))
-                .onErrorReturn(ResponseEntity.internalServerError()
-                        .body(Map.of("error", "Failed to process delegate call")));
+                .onErrorResume(error -> Mono.just(errorResponse(error)));
+    }
+
+    // Streams one result per target as each completes (NDJSON, or SSE with Accept: text/event-stream)
+    @PostMapping(value = "/delegate/batch",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<BatchDelegateResult> delegateBatch(@AuthenticationPrincipal Jwt jwt,
+                                                   @RequestBody BatchDelegateRequest request) {
+        logger.info("Received batch delegate call for user: {}", jwt.getClaimAsString("preferred_username"));
+
+        return batchDelegateService.delegate(jwt, request.getTargets());
+    }
+
+    // Called by client-app right after login to warm the OBO cache for the prefetched downstreams
+    @PostMapping("/tokens/prefetch")
+    public Mono<Map<String, String>> prefetchTokens(@AuthenticationPrincipal Jwt jwt) {
+        List<String> audiences = downstreamRegistry.prefetched().stream().map(Downstream::audience).toList();
+        logger.info("Prefetching {} OBO tokens for user: {}", audiences.size(), jwt.getClaimAsString("preferred_username"));
+
+        return onBehalfOfService.prefetch(jwt, audiences);
+    }
+
+    private void invalidateIfRejected(DownstreamCallException error, Jwt jwt, Downstream downstream) {
+        if (error.getStatusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+            onBehalfOfService.invalidate(jwt, downstream.audience());
+        }
+    }
+
+    private ResponseEntity<ErrorResponse> errorResponse(Throwable error) {
+        // Keycloak or the downstream is failing, or its circuit is open: worth retrying later
+        if (ServerFailures.isUnavailable(error)) {
+            long retryAfterSeconds = Math.max(1, (resilience.retryAfter(error).toMillis() + 999) / 1000);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(new ErrorResponse("Delegate call temporarily unavailable"));
+        }
+        // The message carries the downstream's error body, which is logged above but not passed on
+        if (error instanceof DownstreamCallException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new ErrorResponse("Delegate call rejected with status " + e.getStatusCode().value()));
+        }
+        if (error instanceof DataBufferLimitException) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new ErrorResponse("Delegate response too large"));
+        }
+        return ResponseEntity.internalServerError()
+                .body(new ErrorResponse("Failed to process delegate call"));
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<Map<String, Object>> getProfile(@AuthenticationPrincipal Jwt jwt) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("service", "api-service-1");
-        response.put("user_id", jwt.getClaimAsString("sub"));
-        response.put("username", jwt.getClaimAsString("preferred_username"));
-        response.put("email", jwt.getClaimAsString("email"));
-        response.put("roles", jwt.getClaim("realm_access"));
-        response.put("message", "This is profile data from API Service 1");
+    public ResponseEntity<ProfileResponse> getProfile(@AuthenticationPrincipal Jwt jwt) {
+        ProfileResponse response = new ProfileResponse(
+                "api-service-1",
+                jwt.getClaimAsString("sub"),
+                jwt.getClaimAsString("preferred_username"),
+                jwt.getClaimAsString("email"),
+                jwt.getClaimAsMap("realm_access"),
+                "This is profile data from API Service 1");
 
         return ResponseEntity.ok(response);
     }
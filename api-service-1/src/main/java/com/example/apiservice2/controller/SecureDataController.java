@@ -2,6 +2,7 @@ package com.example.apiservice2.controller;
 
 
 
+import com.example.apiservice2.dto.SecureDataResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -10,38 +11,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
 public class SecureDataController {
 
     @GetMapping("/data")
-    public ResponseEntity<Map<String, Object>> getSecureData(@AuthenticationPrincipal Jwt jwt) {
-        Map<String, Object> response = new HashMap<>();
+    public ResponseEntity<SecureDataResponse> getSecureData(@AuthenticationPrincipal Jwt jwt) {
+        SecureDataResponse.SecureData secureData =
+                new SecureDataResponse.SecureData("$10,000.00", "1234", 750, Instant.now());
 
-        // Extract key claims from the JWT
-        response.put("sub", jwt.getClaimAsString("sub"));
-        response.put("azp", jwt.getClaimAsString("azp"));
-        response.put("aud", jwt.getAudience());
-        response.put("iss", jwt.getClaimAsString("iss"));
-        response.put("preferred_username", jwt.getClaimAsString("preferred_username"));
-        response.put("realm_access", jwt.getClaim("realm_access"));
-        response.put("iat", jwt.getClaimAsInstant("iat"));
-        response.put("exp", jwt.getClaimAsInstant("exp"));
-
-        // Add some secure data
-        response.put("secure_data", Map.of(
-                "account_balance", "$10,000.00",
-                "ssn_last_four", "1234",
-                "credit_score", 750,
-                "accessed_at", Instant.now()
-        ));
-
-        response.put("service", "api-service-2");
-        response.put("message", "This is secure data from API Service 2");
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(SecureDataResponse.of(jwt, secureData, "api-service-2",
+                "This is secure data from API Service 2"));
     }
 }
@@ -0,0 +1,33 @@
+package com.example.apiservice2.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchDelegateRequest {
+
+    private List<Target> targets = new ArrayList<>();
+
+    public List<Target> getTargets() { return targets; }
+    public void setTargets(List<Target> targets) { this.targets = targets; }
+
+    public static class Target {
+        // Echoed back on the matching result; results arrive in completion order
+        private String id;
+        // Registry name of the downstream; when absent, the downstream registered for audience, else the default
+        private String downstream;
+        private String audience;
+        private String path;
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public String getDownstream() { return downstream; }
+        public void setDownstream(String downstream) { this.downstream = downstream; }
+
+        public String getAudience() { return audience; }
+        public void setAudience(String audience) { this.audience = audience; }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.apiservice2.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchDelegateResult {
+
+    private String id;
+    private String downstream;
+    private String audience;
+    private int status;
+    private String data;
+    private String error;
+
+    public BatchDelegateResult() {}
+
+    public static BatchDelegateResult success(String id, String downstream, String audience, String data) {
+        BatchDelegateResult result = new BatchDelegateResult();
+        result.id = id;
+        result.downstream = downstream;
+        result.audience = audience;
+        result.status = 200;
+        result.data = data;
+        return result;
+    }
+
+    public static BatchDelegateResult failure(String id, String downstream, String audience, int status, String error) {
+        BatchDelegateResult result = new BatchDelegateResult();
+        result.id = id;
+        result.downstream = downstream;
+        result.audience = audience;
+        result.status = status;
+        result.error = error;
+        return result;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getDownstream() { return downstream; }
+    public void setDownstream(String downstream) { this.downstream = downstream; }
+
+    public String getAudience() { return audience; }
+    public void setAudience(String audience) { this.audience = audience; }
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    // The downstream's JSON body, embedded as-is
+    @JsonRawValue
+    public String getData() { return data; }
+    public void setData(String data) { this.data = data; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,18 @@
+package com.example.apiservice2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+/**
+ * Body of {@code GET /api/delegate}. The downstream's JSON body is embedded as-is rather than
+ * parsed and re-serialized, or escaped into a string.
+ */
+public record DelegateResponse(String service,
+                               String message,
+                               String user,
+                               @JsonProperty("processed_at") Instant processedAt,
+                               @JsonProperty("original_token_azp") String originalTokenAzp,
+                               @JsonProperty("secure_data_from_api_service_2") @JsonRawValue String secureData) {
+}
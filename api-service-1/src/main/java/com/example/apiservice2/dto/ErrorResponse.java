@@ -0,0 +1,4 @@
+package com.example.apiservice2.dto;
+
+public record ErrorResponse(String error) {
+}
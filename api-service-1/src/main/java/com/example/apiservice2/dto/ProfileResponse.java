@@ -0,0 +1,16 @@
+package com.example.apiservice2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Body of {@code GET /api/profile}.
+ */
+public record ProfileResponse(String service,
+                              @JsonProperty("user_id") String userId,
+                              String username,
+                              String email,
+                              Map<String, Object> roles,
+                              String message) {
+}
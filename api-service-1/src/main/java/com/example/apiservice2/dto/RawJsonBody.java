@@ -0,0 +1,10 @@
+package com.example.apiservice2.dto;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+/**
+ * A response body that is already JSON, held as buffers and written to the response unchanged.
+ */
+public record RawJsonBody(Flux<DataBuffer> content) {
+}
@@ -0,0 +1,46 @@
+package com.example.apiservice2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Body of {@code GET /api/data}: the caller's key token claims plus the secure data. A fixed shape,
+ * so Jackson builds its serializer once and reuses it.
+ */
+public record SecureDataResponse(String sub,
+                                 String azp,
+                                 List<String> aud,
+                                 String iss,
+                                 @JsonProperty("preferred_username") String preferredUsername,
+                                 @JsonProperty("realm_access") Map<String, Object> realmAccess,
+                                 Instant iat,
+                                 Instant exp,
+                                 @JsonProperty("secure_data") SecureData secureData,
+                                 String service,
+                                 String message) {
+
+    public static SecureDataResponse of(Jwt jwt, SecureData secureData, String service, String message) {
+        return new SecureDataResponse(
+                jwt.getClaimAsString("sub"),
+                jwt.getClaimAsString("azp"),
+                jwt.getAudience(),
+                jwt.getClaimAsString("iss"),
+                jwt.getClaimAsString("preferred_username"),
+                jwt.getClaimAsMap("realm_access"),
+                jwt.getClaimAsInstant("iat"),
+                jwt.getClaimAsInstant("exp"),
+                secureData,
+                service,
+                message);
+    }
+
+    public record SecureData(@JsonProperty("account_balance") String accountBalance,
+                             @JsonProperty("ssn_last_four") String ssnLastFour,
+                             @JsonProperty("credit_score") int creditScore,
+                             @JsonProperty("accessed_at") Instant accessedAt) {
+    }
+}
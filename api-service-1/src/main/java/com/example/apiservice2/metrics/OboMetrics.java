@@ -0,0 +1,106 @@
+package com.example.apiservice2.metrics;
+
+import com.example.apiservice2.service.DownstreamCallException;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Observes the two outbound hops of a delegate call, tagged by audience and outcome. Each
+ * observation is recorded as a timer and as a span, and the WebClient span it wraps is
+ * nested beneath it so each hop's share of /api/delegate latency can be read off the trace.
+ */
+@Component
+public class OboMetrics {
+
+    static final String TOKEN_EXCHANGE = "obo.token.exchange";
+    static final String DOWNSTREAM_CALL = "obo.downstream.call";
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public OboMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    public <T> Mono<ResponseEntity<T>> timeTokenExchange(String audience, Mono<ResponseEntity<T>> exchange) {
+        return observe(TOKEN_EXCHANGE, "token-exchange", KeyValues.of("audience", audience), exchange);
+    }
+
+    public <T> Mono<ResponseEntity<T>> timeDownstreamCall(String service, String audience, Mono<ResponseEntity<T>> call) {
+        return observe(DOWNSTREAM_CALL, "downstream-call " + service,
+                KeyValues.of("service", service, "audience", audience), call);
+    }
+
+    // Successes are tagged with the status the call actually got, e.g. 304 for a revalidated body
+    private <T> Mono<ResponseEntity<T>> observe(String name, String contextualName, KeyValues keyValues,
+                                                Mono<ResponseEntity<T>> source) {
+        return Mono.deferContextual(context -> {
+            Observation observation = Observation.createNotStarted(name, observationRegistry)
+                    .contextualName(contextualName)
+                    .lowCardinalityKeyValues(keyValues)
+                    .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY,
+                            observationRegistry.getCurrentObservation()))
+                    .start();
+            return source
+                    .doOnSuccess(entity -> stop(observation, "SUCCESS",
+                            entity != null ? String.valueOf(entity.getStatusCode().value()) : "NONE"))
+                    .doOnError(error -> {
+                        HttpStatusCode status = statusOf(error);
+                        String statusTag = status != null ? String.valueOf(status.value()) : "NONE";
+                        observation.error(error);
+                        stop(observation, outcome(status), statusTag);
+                        Counter.builder(name + ".errors")
+                                .tags(tags(keyValues))
+                                .tags("outcome", outcome(status), "status", statusTag,
+                                        "exception", error.getClass().getSimpleName())
+                                .register(meterRegistry)
+                                .increment();
+                    })
+                    .doOnCancel(() -> stop(observation, "CANCELLED", "NONE"))
+                    .contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private static void stop(Observation observation, String outcome, String status) {
+        observation.lowCardinalityKeyValue("outcome", outcome)
+                .lowCardinalityKeyValue("status", status)
+                .stop();
+    }
+
+    private static Tags tags(KeyValues keyValues) {
+        Tags tags = Tags.empty();
+        for (KeyValue keyValue : keyValues) {
+            tags = tags.and(keyValue.getKey(), keyValue.getValue());
+        }
+        return tags;
+    }
+
+    private static HttpStatusCode statusOf(Throwable error) {
+        if (error instanceof DownstreamCallException e) {
+            return e.getStatusCode();
+        }
+        if (error instanceof WebClientResponseException e) {
+            return e.getStatusCode();
+        }
+        return null;
+    }
+
+    private static String outcome(HttpStatusCode status) {
+        if (status == null) {
+            return "UNKNOWN";
+        }
+        return status.is4xxClientError() ? "CLIENT_ERROR" : status.is5xxServerError() ? "SERVER_ERROR" : "UNKNOWN";
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.apiservice2.resilience;
+
+import com.example.apiservice2.config.ResilienceProperties;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Guards outbound calls per destination: each attempt is time-limited and passes a semaphore
+ * bulkhead and a circuit breaker (configured under resilience4j.*), and server failures are
+ * retried with jittered exponential backoff while the destination's retry budget allows.
+ */
+@Component
+public class OutboundResilience {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundResilience.class);
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry meterRegistry;
+    private final ResilienceProperties properties;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    public OutboundResilience(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads,
+                              MeterRegistry meterRegistry, ResilienceProperties properties) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    public <T> Mono<T> protect(String destination, Mono<T> call) {
+        ResilienceProperties.Retry retry = properties.getRetry();
+        RetryBudget budget = budgets.computeIfAbsent(destination, this::newBudget);
+
+        return Mono.defer(() -> {
+            budget.onCall();
+            // Counted here as well so the attempt that exhausts the retries doesn't spend budget
+            AtomicInteger retries = new AtomicInteger();
+            return call
+                    .timeout(properties.getAttemptTimeout())
+                    .transformDeferred(BulkheadOperator.of(bulkheads.bulkhead(destination)))
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.circuitBreaker(destination)))
+                    .retryWhen(Retry.backoff(retry.getMaxRetries(), retry.getMinBackoff())
+                            .maxBackoff(retry.getMaxBackoff())
+                            .jitter(retry.getJitter())
+                            .filter(error -> ServerFailures.isServerFailure(error)
+                                    && retries.getAndIncrement() < retry.getMaxRetries()
+                                    && spend(destination, budget))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+        });
+    }
+
+    /**
+     * How long a caller refused with {@code error} should wait: an open circuit stays open for its
+     * wait-duration-in-open-state, anything else transient is worth retrying after the longest backoff.
+     */
+    public Duration retryAfter(Throwable error) {
+        if (error instanceof CallNotPermittedException e) {
+            long waitMillis = circuitBreakers.circuitBreaker(e.getCausingCircuitBreakerName())
+                    .getCircuitBreakerConfig()
+                    .getWaitIntervalFunctionInOpenState()
+                    .apply(1);
+            return Duration.ofMillis(waitMillis);
+        }
+        return properties.getRetry().getMaxBackoff();
+    }
+
+    private boolean spend(String destination, RetryBudget budget) {
+        boolean allowed = budget.tryRetry();
+        Counter.builder("obo.retries")
+                .description("Retries of failed outbound calls, and those refused by the retry budget")
+                .tag("destination", destination)
+                .tag("outcome", allowed ? "attempted" : "rejected")
+                .register(meterRegistry)
+                .increment();
+        if (!allowed) {
+            logger.warn("Retry budget for {} exhausted, failing without retry", destination);
+        }
+        return allowed;
+    }
+
+    private RetryBudget newBudget(String destination) {
+        RetryBudget budget = new RetryBudget(properties.getRetry().getBudgetRatio(), properties.getRetry().getBudgetMax());
+        Gauge.builder("obo.retry.budget", budget, RetryBudget::tokens)
+                .description("Retry tokens left for a destination")
+                .tag("destination", destination)
+                .register(meterRegistry);
+        return budget;
+    }
+}
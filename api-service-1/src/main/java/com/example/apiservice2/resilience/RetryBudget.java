@@ -0,0 +1,43 @@
+package com.example.apiservice2.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries at a fraction of recent calls: every call earns {@code ratio} of a retry token, up
+ * to {@code max}, and every retry spends a whole one. When a destination is failing everywhere the
+ * budget drains and callers fail after their first attempt instead of multiplying the load.
+ */
+public class RetryBudget {
+
+    // Tokens are held in thousandths so the balance can be updated with a single CAS
+    private static final long SCALE = 1000;
+
+    private final long earnPerCall;
+    private final long max;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, double max) {
+        this.earnPerCall = Math.round(ratio * SCALE);
+        this.max = Math.round(max * SCALE);
+        this.balance = new AtomicLong(this.max);
+    }
+
+    public void onCall() {
+        balance.accumulateAndGet(earnPerCall, (current, earned) -> Math.min(max, current + earned));
+    }
+
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double tokens() {
+        return (double) balance.get() / SCALE;
+    }
+}
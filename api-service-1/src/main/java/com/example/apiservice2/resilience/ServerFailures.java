@@ -0,0 +1,42 @@
+package com.example.apiservice2.resilience;
+
+import com.example.apiservice2.service.DownstreamCallException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Failures that say the remote side is unhealthy (5xx, timeouts, connection errors), as opposed
+ * to a request it rejected. Only these trip the circuit breaker and are retried; a 4xx never is.
+ */
+public class ServerFailures implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable error) {
+        return isServerFailure(error);
+    }
+
+    public static boolean isServerFailure(Throwable error) {
+        if (error instanceof DownstreamCallException e) {
+            return e.getStatusCode().is5xxServerError();
+        }
+        if (error instanceof WebClientResponseException e) {
+            return e.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException
+                || error instanceof TimeoutException
+                || error instanceof IOException;
+    }
+
+    // Server failures plus calls refused locally by an open circuit or a full bulkhead
+    public static boolean isUnavailable(Throwable error) {
+        return isServerFailure(error)
+                || error instanceof CallNotPermittedException
+                || error instanceof BulkheadFullException;
+    }
+}
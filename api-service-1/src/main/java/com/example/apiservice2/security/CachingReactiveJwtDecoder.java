@@ -0,0 +1,35 @@
+package com.example.apiservice2.security;
+
+import com.example.apiservice2.cache.TokenDigest;
+import com.example.apiservice2.cache.UntilTokenExpiry;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Remembers successfully validated tokens so a repeat bearer token skips signature verification
+ * and claim parsing. Keyed by a digest of the full token text (signature included), so only a
+ * byte-identical token can hit; entries never outlive the token's exp.
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+    private final AsyncCache<TokenDigest, Jwt> validated;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maximumSize) {
+        this.delegate = delegate;
+        this.validated = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .buildAsync();
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) {
+        // Failed validations complete exceptionally and are dropped from the cache
+        return Mono.fromFuture(() -> validated.get(TokenDigest.of(token),
+                (key, executor) -> delegate.decode(token).toFuture()), true);
+    }
+}
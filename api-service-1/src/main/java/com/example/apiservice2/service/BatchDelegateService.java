@@ -0,0 +1,141 @@
+package com.example.apiservice2.service;
+
+import com.example.apiservice2.dto.BatchDelegateRequest;
+import com.example.apiservice2.dto.BatchDelegateResult;
+import com.example.apiservice2.resilience.ServerFailures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fans a batch of delegate targets out to their downstream services. The token is exchanged once
+ * per distinct audience and shared by that audience's targets; downstream calls run with bounded
+ * concurrency and each target yields its own result, so one failure never fails the batch.
+ */
+@Service
+public class BatchDelegateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchDelegateService.class);
+
+    private final OnBehalfOfService onBehalfOfService;
+    private final DownstreamRegistry downstreamRegistry;
+    private final DownstreamClient downstreamClient;
+
+    @Value("${obo.batch.max-targets:100}")
+    private int maxTargets;
+
+    @Value("${obo.batch.max-concurrency:8}")
+    private int maxConcurrency;
+
+    public BatchDelegateService(OnBehalfOfService onBehalfOfService, DownstreamRegistry downstreamRegistry,
+                                DownstreamClient downstreamClient) {
+        this.onBehalfOfService = onBehalfOfService;
+        this.downstreamRegistry = downstreamRegistry;
+        this.downstreamClient = downstreamClient;
+    }
+
+    public Flux<BatchDelegateResult> delegate(Jwt userJwt, List<BatchDelegateRequest.Target> targets) {
+        if (targets == null || targets.isEmpty()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "No targets given"));
+        }
+        if (targets.size() > maxTargets) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxTargets + " targets per batch"));
+        }
+
+        // cache() makes each audience's exchange run once, and a failed exchange fail its targets only
+        Map<String, Mono<String>> tokensByAudience = new HashMap<>();
+        for (BatchDelegateRequest.Target target : targets) {
+            resolve(target).ifPresent(downstream -> tokensByAudience.computeIfAbsent(downstream.audience(),
+                    audience -> onBehalfOfService.exchangeToken(userJwt, audience).cache()));
+        }
+        logger.info("Batch of {} targets across {} audiences", targets.size(), tokensByAudience.size());
+
+        return Flux.fromIterable(targets)
+                .flatMap(target -> call(userJwt, target, tokensByAudience), maxConcurrency);
+    }
+
+    private Mono<BatchDelegateResult> call(Jwt userJwt, BatchDelegateRequest.Target target,
+                                           Map<String, Mono<String>> tokensByAudience) {
+        Optional<Downstream> resolved = resolve(target);
+        if (resolved.isEmpty()) {
+            return Mono.just(BatchDelegateResult.failure(target.getId(), target.getDownstream(), target.getAudience(),
+                    HttpStatus.BAD_REQUEST.value(), "Unknown downstream"));
+        }
+        Downstream downstream = resolved.get();
+        String path = target.getPath() != null ? target.getPath() : downstream.defaultPath();
+        if (!isApiPath(path)) {
+            return Mono.just(BatchDelegateResult.failure(target.getId(), downstream.name(), downstream.audience(),
+                    HttpStatus.BAD_REQUEST.value(), "Path must be a plain path under /api/"));
+        }
+        return tokensByAudience.get(downstream.audience())
+                .flatMap(accessToken -> downstreamClient.call(downstream, userJwt.getSubject(), accessToken, path))
+                .map(data -> BatchDelegateResult.success(target.getId(), downstream.name(), downstream.audience(), data))
+                .onErrorResume(error -> {
+                    logger.warn("Batch target {} failed: {}", target.getId(), error.getMessage());
+                    if (error instanceof DownstreamCallException e && e.getStatusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+                        onBehalfOfService.invalidate(userJwt, downstream.audience());
+                    }
+                    int status = error instanceof DownstreamCallException e
+                            ? e.getStatusCode().value()
+                            : ServerFailures.isUnavailable(error)
+                            ? HttpStatus.SERVICE_UNAVAILABLE.value()
+                            : HttpStatus.BAD_GATEWAY.value();
+                    return Mono.just(BatchDelegateResult.failure(target.getId(), downstream.name(), downstream.audience(),
+                            status, failureMessage(error)));
+                });
+    }
+
+    // Same wording as /api/delegate; the message can carry the downstream's error body, which is only logged
+    static String failureMessage(Throwable error) {
+        if (ServerFailures.isUnavailable(error)) {
+            return "Delegate call temporarily unavailable";
+        }
+        if (error instanceof DownstreamCallException e) {
+            return "Delegate call rejected with status " + e.getStatusCode().value();
+        }
+        return "Failed to process delegate call";
+    }
+
+    // Rejects anything the downstream could resolve outside /api/: dot segments (plain or encoded),
+    // matrix parameters, empty segments, backslashes and encoded separators
+    static boolean isApiPath(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        if (lower.contains("//") || lower.contains(";") || lower.contains("\\")
+                || lower.contains("%2e") || lower.contains("%2f") || lower.contains("%5c")) {
+            return false;
+        }
+        try {
+            URI uri = new URI(path);
+            String rawPath = uri.getRawPath();
+            return uri.getScheme() == null && uri.getRawAuthority() == null && rawPath != null
+                    && rawPath.startsWith("/api/") && uri.normalize().getRawPath().equals(rawPath);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private Optional<Downstream> resolve(BatchDelegateRequest.Target target) {
+        if (target.getDownstream() != null) {
+            return downstreamRegistry.find(target.getDownstream());
+        }
+        if (target.getAudience() != null) {
+            return downstreamRegistry.findByAudience(target.getAudience());
+        }
+        return Optional.of(downstreamRegistry.defaultDownstream());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.apiservice2.service;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * A downstream service reachable with an OBO token for its audience, with its own connection pool.
+ */
+public record Downstream(String name,
+                         String audience,
+                         String baseUrl,
+                         String defaultPath,
+                         boolean prefetch,
+                         WebClient webClient,
+                         ConnectionProvider connectionProvider) {
+}
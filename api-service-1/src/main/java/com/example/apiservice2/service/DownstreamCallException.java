@@ -0,0 +1,20 @@
+package com.example.apiservice2.service;
+
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * A non-2xx response from Keycloak or a downstream service, keeping the status for metrics.
+ */
+public class DownstreamCallException extends RuntimeException {
+
+    private final HttpStatusCode statusCode;
+
+    public DownstreamCallException(String message, HttpStatusCode statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.apiservice2.service;
+
+
+import com.example.apiservice2.cache.DownstreamResponseCache;
+import com.example.apiservice2.metrics.OboMetrics;
+import com.example.apiservice2.resilience.OutboundResilience;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+@Service
+public class DownstreamClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamClient.class);
+
+    // What an empty downstream body becomes, so callers embedding it raw still produce valid JSON
+    private static final byte[] JSON_NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final OboMetrics metrics;
+    private final OutboundResilience resilience;
+    private final DownstreamResponseCache responseCache;
+    private final int maxBodySize;
+
+    public DownstreamClient(OboMetrics metrics, OutboundResilience resilience,
+                            Optional<DownstreamResponseCache> responseCache,
+                            @Value("${obo.delegate.max-body-size:16MB}") DataSize maxBodySize) {
+        this.metrics = metrics;
+        this.resilience = resilience;
+        this.responseCache = responseCache.orElse(null);
+        this.maxBodySize = Math.toIntExact(maxBodySize.toBytes());
+    }
+
+    public Mono<String> call(Downstream downstream, String user, String accessToken) {
+        return call(downstream, user, accessToken, downstream.defaultPath());
+    }
+
+    /**
+     * Calls the downstream for {@code user} (the subject the OBO token was exchanged for), which
+     * keys the revalidation cache: a body this user fetched before is requested conditionally and
+     * reused when the downstream answers 304. Callers embed the body as raw JSON, so an empty body
+     * comes back as {@code "null"}.
+     */
+    public Mono<String> call(Downstream downstream, String user, String accessToken, String path) {
+        logger.info("Calling {} endpoint {}", downstream.name(), path);
+
+        DownstreamResponseCache.Entry cached = cached(downstream, user, path);
+        Mono<ResponseEntity<String>> call = downstream.webClient()
+                .get()
+                .uri(downstream.baseUrl() + path)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                .headers(headers -> DownstreamResponseCache.addValidators(headers, cached))
+                .exchangeToMono(response -> {
+                    if (cached != null) {
+                        boolean notModified = response.statusCode().value() == HttpStatus.NOT_MODIFIED.value();
+                        responseCache.recordRevalidation(downstream.audience(), notModified);
+                        if (notModified) {
+                            return response.releaseBody().thenReturn(ResponseEntity.status(response.statusCode())
+                                    .body(new String(orJsonNull(cached.body()), StandardCharsets.UTF_8)));
+                        }
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return rejected(downstream, response);
+                    }
+                    // Callers embed the body as raw JSON, so anything else must not get through
+                    MediaType contentType = response.headers().contentType().orElse(null);
+                    if (contentType == null || !contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                        return response.releaseBody().then(Mono.error(notJson(downstream, contentType)));
+                    }
+                    return response.bodyToMono(byte[].class)
+                            .defaultIfEmpty(new byte[0])
+                            .map(body -> {
+                                if (responseCache != null) {
+                                    responseCache.put(user, downstream.audience(), path, response.headers().asHttpHeaders(), body);
+                                }
+                                return ResponseEntity.status(response.statusCode())
+                                        .body(new String(orJsonNull(body), StandardCharsets.UTF_8));
+                            });
+                });
+
+        return metrics.timeDownstreamCall(downstream.name(), downstream.audience(),
+                        resilience.protect(downstream.name(), call))
+                .map(ResponseEntity::getBody);
+    }
+
+    /**
+     * Calls the downstream's default path and hands back its JSON body as the raw buffers read off
+     * the connection, without decoding it. The buffers are joined (not copied) before the returned
+     * Mono completes, so the bulkhead permit, retries, the circuit breaker and the latency metric
+     * cover the whole body, and a body that fails halfway fails the call instead of reaching the
+     * caller truncated. The joined body is capped at obo.delegate.max-body-size, a larger limit than
+     * the codecs' max-in-memory-size, since joining keeps the buffers rather than copying them; an
+     * empty body is handed back as {@code null}. On a 304 the body is the one cached for this user;
+     * a fresh body is copied into the cache as it is read.
+     */
+    public Mono<Flux<DataBuffer>> stream(Downstream downstream, String user, String accessToken) {
+        logger.info("Streaming {} endpoint {}", downstream.name(), downstream.defaultPath());
+
+        String path = downstream.defaultPath();
+        DownstreamResponseCache.Entry cached = cached(downstream, user, path);
+        Mono<ResponseEntity<Flux<DataBuffer>>> call = downstream.webClient()
+                .get()
+                .uri(downstream.baseUrl() + path)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                .headers(headers -> DownstreamResponseCache.addValidators(headers, cached))
+                .retrieve()
+                .onStatus(status -> !status.is2xxSuccessful() && !(cached != null && status.value() == HttpStatus.NOT_MODIFIED.value()),
+                        response -> rejected(downstream, response))
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(entity -> {
+                    if (cached != null) {
+                        boolean notModified = entity.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value();
+                        responseCache.recordRevalidation(downstream.audience(), notModified);
+                        if (notModified) {
+                            return entity.getBody()
+                                    .doOnNext(DataBufferUtils::release)
+                                    .then(Mono.just(ResponseEntity.status(entity.getStatusCode())
+                                            .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(orJsonNull(cached.body())))))));
+                        }
+                    }
+                    MediaType contentType = entity.getHeaders().getContentType();
+                    if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                        Flux<DataBuffer> body = responseCache != null
+                                ? responseCache.tee(user, downstream.audience(), path, entity.getHeaders(), entity.getBody())
+                                : entity.getBody();
+                        return DataBufferUtils.join(body, maxBodySize)
+                                .map(DownstreamClient::orJsonNull)
+                                .defaultIfEmpty(DefaultDataBufferFactory.sharedInstance.wrap(JSON_NULL))
+                                .map(joined -> ResponseEntity.status(entity.getStatusCode()).body(Flux.just(joined)));
+                    }
+                    // Not JSON, so it can't be embedded as-is; drain it to free the connection
+                    return entity.getBody()
+                            .doOnNext(DataBufferUtils::release)
+                            .then(Mono.error(notJson(downstream, contentType)));
+                });
+
+        return metrics.timeDownstreamCall(downstream.name(), downstream.audience(),
+                        resilience.protect(downstream.name(), call))
+                .map(ResponseEntity::getBody);
+    }
+
+    private static byte[] orJsonNull(byte[] body) {
+        return body.length > 0 ? body : JSON_NULL;
+    }
+
+    private static DataBuffer orJsonNull(DataBuffer body) {
+        if (body.readableByteCount() > 0) {
+            return body;
+        }
+        DataBufferUtils.release(body);
+        return DefaultDataBufferFactory.sharedInstance.wrap(JSON_NULL);
+    }
+
+    private DownstreamResponseCache.Entry cached(Downstream downstream, String user, String path) {
+        return responseCache != null ? responseCache.get(user, downstream.audience(), path) : null;
+    }
+
+    // A 2xx the caller can't use, so reported as a bad gateway rather than with the downstream's status
+    private static DownstreamCallException notJson(Downstream downstream, MediaType contentType) {
+        return new DownstreamCallException(downstream.name() + " returned " + contentType + " instead of JSON",
+                HttpStatus.BAD_GATEWAY);
+    }
+
+    private static <T> Mono<T> rejected(Downstream downstream, ClientResponse response) {
+        logger.error("{} call failed with status: {}", downstream.name(), response.statusCode());
+        return response.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .flatMap(errorBody -> {
+                    logger.error("Error response: {}", errorBody);
+                    return Mono.error(new DownstreamCallException(downstream.name() + " call failed: " + errorBody,
+                            response.statusCode()));
+                });
+    }
+}
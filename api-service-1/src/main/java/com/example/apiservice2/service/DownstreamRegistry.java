@@ -0,0 +1,54 @@
+package com.example.apiservice2.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The configured downstream services, looked up by name or by token audience.
+ */
+public class DownstreamRegistry {
+
+    private final Map<String, Downstream> byName = new LinkedHashMap<>();
+    private final Map<String, Downstream> byAudience = new HashMap<>();
+    private final Downstream defaultDownstream;
+
+    public DownstreamRegistry(Collection<Downstream> downstreams, String defaultName) {
+        for (Downstream downstream : downstreams) {
+            if (downstream.audience() == null || downstream.baseUrl() == null) {
+                throw new IllegalStateException("Downstream " + downstream.name() + " needs an audience and a base-url");
+            }
+            byName.put(downstream.name(), downstream);
+            if (byAudience.putIfAbsent(downstream.audience(), downstream) != null) {
+                throw new IllegalStateException("Audience " + downstream.audience() + " is used by more than one downstream");
+            }
+        }
+        this.defaultDownstream = byName.get(defaultName);
+        if (defaultDownstream == null) {
+            throw new IllegalStateException("Default downstream " + defaultName + " is not configured");
+        }
+    }
+
+    public Optional<Downstream> find(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    public Optional<Downstream> findByAudience(String audience) {
+        return Optional.ofNullable(byAudience.get(audience));
+    }
+
+    public Downstream defaultDownstream() {
+        return defaultDownstream;
+    }
+
+    public List<Downstream> prefetched() {
+        return byName.values().stream().filter(Downstream::prefetch).toList();
+    }
+
+    public void dispose() {
+        byName.values().forEach(downstream -> downstream.connectionProvider().dispose());
+    }
+}
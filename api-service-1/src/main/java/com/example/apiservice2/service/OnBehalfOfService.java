@@ -1,25 +1,42 @@
 package com.example.apiservice2.service;
 
 
+import com.example.apiservice2.cache.OboToken;
+import com.example.apiservice2.cache.OboTokenCache;
+import com.example.apiservice2.cache.OboTokenKey;
+import com.example.apiservice2.config.WebClientConfig;
 import com.example.apiservice2.dto.TokenExchangeResponse;
+import com.example.apiservice2.metrics.OboMetrics;
+import com.example.apiservice2.resilience.OutboundResilience;
+import com.example.apiservice2.resilience.ServerFailures;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+
 @Service
 public class OnBehalfOfService {
 
     private static final Logger logger = LoggerFactory.getLogger(OnBehalfOfService.class);
 
     private final WebClient webClient;
+    private final OboTokenCache tokenCache;
+    private final OboMetrics metrics;
+    private final OutboundResilience resilience;
 
     @Value("${keycloak.url:http://localhost:8081}")
     private String keycloakUrl;
@@ -33,12 +50,46 @@ public class OnBehalfOfService {
     @Value("${keycloak.realm:obo-demo-realm}")
     private String realm;
 
-    public OnBehalfOfService(WebClient webClient) {
+    public OnBehalfOfService(@Qualifier("keycloakWebClient") WebClient webClient, OboTokenCache tokenCache,
+                             OboMetrics metrics, OutboundResilience resilience) {
         this.webClient = webClient;
+        this.tokenCache = tokenCache;
+        this.metrics = metrics;
+        this.resilience = resilience;
+    }
+
+    public Mono<String> exchangeToken(Jwt userJwt, String audience) {
+        OboTokenKey key = OboTokenKey.of(userJwt, audience);
+        return tokenCache.get(key, k -> requestTokenExchange(userJwt, audience))
+                .onErrorResume(ServerFailures::isUnavailable, error -> tokenCache.fallback(key)
+                        .map(token -> {
+                            logger.warn("Token exchange unavailable ({}), using earlier token for audience: {}",
+                                    error.getClass().getSimpleName(), audience);
+                            return Mono.just(token);
+                        })
+                        .orElseGet(() -> Mono.error(error)))
+                .map(OboToken::accessToken);
+    }
+
+    // For a token the downstream rejected: the next call re-exchanges, on this and every other replica
+    public void invalidate(Jwt userJwt, String audience) {
+        tokenCache.invalidate(OboTokenKey.of(userJwt, audience));
     }
 
-    @Cacheable(value = "obo-tokens", key = "#userToken + '-' + #audience")
-    public Mono<String> exchangeToken(String userToken, String audience) {
+    // Exchanges for every audience at once so the first call to each downstream finds its token cached
+    public Mono<Map<String, String>> prefetch(Jwt userJwt, Collection<String> audiences) {
+        return Flux.fromIterable(audiences)
+                .flatMap(audience -> exchangeToken(userJwt, audience)
+                        .map(token -> Map.entry(audience, "cached"))
+                        .onErrorResume(error -> {
+                            logger.warn("Prefetch for audience {} failed: {}", audience, error.getMessage());
+                            return Mono.just(Map.entry(audience, "failed"));
+                        }))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Mono<OboToken> requestTokenExchange(Jwt userJwt, String audience) {
+        String userToken = userJwt.getTokenValue();
         logger.info("Performing token exchange for audience: {}", audience);
 
         String tokenEndpoint = keycloakUrl + "/realms/" + realm + "/protocol/openid-connect/token";
@@ -51,7 +102,7 @@ public class OnBehalfOfService {
         formData.add("subject_token_type", "urn:ietf:params:oauth:token-type:access_token");
         formData.add("audience", audience);
 
-        return webClient
+        Mono<ResponseEntity<TokenExchangeResponse>> exchange = webClient
                 .post()
                 .uri(tokenEndpoint)
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
@@ -60,14 +111,35 @@ public class OnBehalfOfService {
                 .onStatus(status -> !status.is2xxSuccessful(), response -> {
                     logger.error("Token exchange failed with status: {}", response.statusCode());
                     return response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
                             .flatMap(errorBody -> {
                                 logger.error("Error response: {}", errorBody);
-                                return Mono.error(new RuntimeException("Token exchange failed: " + errorBody));
+                                return Mono.error(new DownstreamCallException("Token exchange failed: " + errorBody,
+                                        response.statusCode()));
                             });
                 })
-                .bodyToMono(TokenExchangeResponse.class)
+                .toEntity(TokenExchangeResponse.class);
+
+        return metrics.timeTokenExchange(audience, resilience.protect(WebClientConfig.KEYCLOAK, exchange))
+                .map(ResponseEntity::getBody)
                 .doOnSuccess(response -> logger.info("Token exchange successful"))
                 .doOnError(error -> logger.error("Token exchange error", error))
-                .map(TokenExchangeResponse::getAccessToken);
+                .map(response -> toOboToken(response, userJwt));
+    }
+
+    // The exchanged token can't outlive the user token it was issued for, whatever expires_in says
+    private OboToken toOboToken(TokenExchangeResponse response, Jwt userJwt) {
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = userJwt.getExpiresAt();
+        boolean refreshable = false;
+        if (response.getExpiresIn() > 0) {
+            Instant exchangedExpiry = issuedAt.plusSeconds(response.getExpiresIn());
+            refreshable = expiresAt == null || exchangedExpiry.isBefore(expiresAt);
+            expiresAt = refreshable ? exchangedExpiry : expiresAt;
+        }
+        if (expiresAt == null) {
+            expiresAt = issuedAt; // No known lifetime: hand it to the caller but don't keep it
+        }
+        return new OboToken(response.getAccessToken(), issuedAt, expiresAt, refreshable);
     }
 }
\ No newline at end of file
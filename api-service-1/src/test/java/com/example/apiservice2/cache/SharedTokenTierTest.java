@@ -0,0 +1,73 @@
+package com.example.apiservice2.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SharedTokenTierTest {
+
+    private static final Duration SKEW = Duration.ofSeconds(30);
+
+    private final LocalSharedTokenStore store = new LocalSharedTokenStore();
+    private final TokenCipher cipher = TokenCipher.withRandomKey();
+    private final AtomicInteger exchanges = new AtomicInteger();
+    private final Function<OboTokenKey, Mono<OboToken>> exchange = key -> Mono.fromSupplier(() -> {
+        Instant now = Instant.now();
+        return new OboToken("obo-" + exchanges.incrementAndGet(), now, now.plusSeconds(300), true);
+    });
+
+    private final OboTokenKey key = OboTokenKey.of(Jwt.withTokenValue("user-token")
+            .header("alg", "none")
+            .subject("alice")
+            .claim("jti", "jti-1")
+            .claim("sid", "session-1")
+            .build(), "api-service-2");
+
+    @Test
+    void replicasShareOneExchange() {
+        OboTokenCache replicaA = replica(cipher);
+        OboTokenCache replicaB = replica(cipher);
+
+        OboToken first = replicaA.get(key, exchange).block();
+        OboToken second = replicaB.get(key, exchange).block();
+
+        assertThat(exchanges).hasValue(1);
+        assertThat(second.accessToken()).isEqualTo(first.accessToken());
+    }
+
+    @Test
+    void invalidationReachesEveryReplica() {
+        OboTokenCache replicaA = replica(cipher);
+        OboTokenCache replicaB = replica(cipher);
+        replicaA.get(key, exchange).block();
+        replicaB.get(key, exchange).block();
+
+        replicaA.invalidate(key);
+
+        assertThat(replicaB.get(key, exchange).block().accessToken()).isEqualTo("obo-2");
+        assertThat(replicaA.get(key, exchange).block().accessToken()).isEqualTo("obo-2");
+        assertThat(exchanges).hasValue(2);
+    }
+
+    @Test
+    void entryUnderAnotherKeyIsAMiss() {
+        OboTokenCache replicaA = replica(cipher);
+        OboTokenCache misconfigured = replica(TokenCipher.withRandomKey());
+        replicaA.get(key, exchange).block();
+
+        assertThat(misconfigured.get(key, exchange).block().accessToken()).isEqualTo("obo-2");
+    }
+
+    private OboTokenCache replica(TokenCipher replicaCipher) {
+        SharedTokenTier tier = new SharedTokenTier(store, replicaCipher, Duration.ofMillis(200), SKEW);
+        return new OboTokenCache(Caffeine.newBuilder().expireAfter(new OboTokenExpiry(SKEW)), 0, null, tier);
+    }
+}
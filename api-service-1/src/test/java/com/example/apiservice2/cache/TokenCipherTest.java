@@ -0,0 +1,51 @@
+package com.example.apiservice2.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenCipherTest {
+
+    private static final byte[] TOKEN = "eyJhbGciOiJSUzI1NiJ9.payload.signature".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ID = "digest:api-service-2".getBytes(StandardCharsets.UTF_8);
+
+    private final TokenCipher cipher = TokenCipher.withRandomKey();
+
+    @Test
+    void roundTrips() throws GeneralSecurityException {
+        assertThat(cipher.decrypt(cipher.encrypt(TOKEN, ID), ID)).isEqualTo(TOKEN);
+    }
+
+    @Test
+    void rejectsTamperedCiphertext() {
+        byte[] sealed = cipher.encrypt(TOKEN, ID);
+        sealed[sealed.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> cipher.decrypt(sealed, ID)).isInstanceOf(GeneralSecurityException.class);
+    }
+
+    @Test
+    void rejectsCiphertextCopiedUnderAnotherId() {
+        byte[] sealed = cipher.encrypt(TOKEN, ID);
+        byte[] otherId = "digest:api-service-3".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> cipher.decrypt(sealed, otherId)).isInstanceOf(GeneralSecurityException.class);
+    }
+
+    @Test
+    void rejectsAnotherKey() {
+        byte[] sealed = cipher.encrypt(TOKEN, ID);
+
+        assertThatThrownBy(() -> TokenCipher.withRandomKey().decrypt(sealed, ID))
+                .isInstanceOf(GeneralSecurityException.class);
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        assertThatThrownBy(() -> cipher.decrypt(new byte[8], ID)).isInstanceOf(GeneralSecurityException.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.apiservice2.service;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchDelegateServiceTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/data", "/api/data?fields=all", "/api/v1/items/42"})
+    void acceptsPlainApiPaths(String path) {
+        assertThat(BatchDelegateService.isApiPath(path)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/actuator/env", "/api/../actuator/env", "/api/./data", "/api/data/..",
+            "/api/%2e%2e/actuator/env", "/api/%2E%2E/actuator", "/api/..%2factuator", "/api/..;/actuator/env",
+            "/api//data", "//evil.example/api/data", "/api/..\\actuator", "http://evil.example/api/data", "/api/da ta"})
+    void rejectsPathsThatEscapeApi(String path) {
+        assertThat(BatchDelegateService.isApiPath(path)).isFalse();
+    }
+
+    @Test
+    void failureMessagesDontCarryTheDownstreamBody() {
+        String body = "{\"error\":\"invalid_grant\",\"detail\":\"internal\"}";
+
+        assertThat(BatchDelegateService.failureMessage(
+                new DownstreamCallException("api-service-2 call failed: " + body, HttpStatus.FORBIDDEN)))
+                .isEqualTo("Delegate call rejected with status 403");
+        assertThat(BatchDelegateService.failureMessage(
+                new DownstreamCallException("keycloak call failed: " + body, HttpStatus.BAD_GATEWAY)))
+                .isEqualTo("Delegate call temporarily unavailable");
+        assertThat(BatchDelegateService.failureMessage(
+                CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("api-service-2"))))
+                .isEqualTo("Delegate call temporarily unavailable");
+        assertThat(BatchDelegateService.failureMessage(new IllegalStateException(body)))
+                .isEqualTo("Failed to process delegate call");
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.apiservice2.service;
+
+import com.example.apiservice2.config.ResilienceProperties;
+import com.example.apiservice2.dto.BatchDelegateResult;
+import com.example.apiservice2.metrics.OboMetrics;
+import com.example.apiservice2.resilience.OutboundResilience;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamClientTest {
+
+    private final DownstreamClient client = new DownstreamClient(
+            new OboMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP),
+            new OutboundResilience(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+                    new SimpleMeterRegistry(), new ResilienceProperties()),
+            Optional.empty(),
+            DataSize.ofBytes(64));
+
+    @Test
+    void callReturnsTheBody() {
+        assertThat(client.call(answering("{\"balance\":1}"), "alice", "obo-token").block())
+                .isEqualTo("{\"balance\":1}");
+    }
+
+    @Test
+    void callReturnsAnEmptyBodyAsNullSoItEmbedsAsValidJson() throws Exception {
+        String data = client.call(answering(""), "alice", "obo-token").block();
+
+        assertThat(data).isEqualTo("null");
+        String batchResult = new ObjectMapper().writeValueAsString(
+                BatchDelegateResult.success("a", "api-service-2", "api-service-2-client", data));
+        assertThat(new ObjectMapper().readTree(batchResult).get("data").isNull()).isTrue();
+    }
+
+    @Test
+    void streamPassesTheBodyThrough() {
+        assertThat(streamed(answering("{\"balance\":1}"))).isEqualTo("{\"balance\":1}");
+    }
+
+    @Test
+    void streamHandsBackAnEmptyBodyAsNull() {
+        assertThat(streamed(answering(""))).isEqualTo("null");
+    }
+
+    @Test
+    void streamRejectsBodiesOverTheLimit() {
+        assertThatThrownBy(() -> streamed(answering("\"" + "x".repeat(100) + "\"")))
+                .isInstanceOf(DataBufferLimitException.class);
+    }
+
+    private String streamed(Downstream downstream) {
+        return client.stream(downstream, "alice", "obo-token")
+                .flatMap(body -> DataBufferUtils.join(body))
+                .map(DownstreamClientTest::text)
+                .block();
+    }
+
+    static Downstream answering(String body) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(body)
+                        .build()))
+                .build();
+        return new Downstream("api-service-2", "api-service-2-client", "http://api-service-2", "/api/data",
+                false, webClient, null);
+    }
+
+    private static String text(DataBuffer buffer) {
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+}
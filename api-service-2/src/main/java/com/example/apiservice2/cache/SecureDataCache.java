@@ -0,0 +1,73 @@
+package com.example.apiservice2.cache;
+
+import com.example.apiservice2.dto.SecureDataResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The serialized {@code GET /api/data} body per user, with the validators conditional requests are
+ * checked against. A user's body is built and serialized once, then served as is until it expires
+ * (secure-data.cache.time-to-live) or is evicted, so changed data shows up after at most one TTL.
+ */
+@Component
+public class SecureDataCache {
+
+    /**
+     * A user's body and its validators; the ETag is a digest of the body, so it changes with it.
+     */
+    public record Representation(byte[] body, String etag, Instant lastModified) {
+    }
+
+    private final Cache<String, Representation> representations;
+    private final ObjectMapper objectMapper;
+
+    public SecureDataCache(ObjectMapper objectMapper,
+                           @Value("${secure-data.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${secure-data.cache.time-to-live:5m}") Duration timeToLive) {
+        this.objectMapper = objectMapper;
+        this.representations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    public Representation forUser(String subject) {
+        return representations.get(subject, this::build);
+    }
+
+    private Representation build(String subject) {
+        // HTTP dates have whole seconds, so If-Modified-Since compares equal to what was sent
+        Instant lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        SecureDataResponse response = new SecureDataResponse(
+                new SecureDataResponse.SecureData("$10,000.00", "1234", 750, lastModified),
+                "api-service-2",
+                "This is secure data from API Service 2");
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            return new Representation(body, etag(body), lastModified);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Couldn't serialize secure data for " + subject, e);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
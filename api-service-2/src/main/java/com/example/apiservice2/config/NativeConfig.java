@@ -0,0 +1,17 @@
+package com.example.apiservice2.config;
+
+import com.example.apiservice2.dto.SecureDataResponse;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for the AOT/native build ({@code -Pnative}): the Caffeine classes behind the security
+ * config's JWT and authorities caches, which Spring can't see from the bean definitions, and the
+ * /api/data body, which SecureDataCache serializes itself rather than through a controller return type.
+ */
+@Configuration
+@ImportRuntimeHints(CaffeineHints.class)
+@RegisterReflectionForBinding(SecureDataResponse.class)
+public class NativeConfig {
+}
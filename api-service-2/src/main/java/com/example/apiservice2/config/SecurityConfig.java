@@ -1,29 +1,31 @@
 package com.example.apiservice2.config;
 
+import com.example.apiservice2.security.CachingJwtDecoder;
+import com.example.apiservice2.security.JwksKeyCache;
+import com.example.apiservice2.security.RealmRoleAuthoritiesConverter;
+import com.example.apiservice2.security.ScrapeAccess;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
-import org.springframework.security.oauth2.core.OAuth2TokenValidator;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
-import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Configuration
 @EnableWebSecurity
@@ -36,11 +38,38 @@ public class SecurityConfig {
     @Value("${keycloak.realm:obo-demo-realm}")
     private String realm;
 
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+    private String jwkSetUri;
+
+    @Value("${jwt-cache.enabled:true}")
+    private boolean jwtCacheEnabled;
+
+    @Value("${jwt-cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+
+    @Value("${jwks.refresh-interval:5m}")
+    private Duration jwksRefreshInterval;
+
+    @Value("${jwks.min-refresh-interval:5s}")
+    private Duration jwksMinRefreshInterval;
+
+    @Value("${jwks.fetch-timeout:5s}")
+    private Duration jwksFetchTimeout;
+
+    @Value("${jwks.seed-file:}")
+    private String jwksSeedFile;
+
+    @Value("${prometheus.allowed-networks:127.0.0.1/32,::1/128}")
+    private List<String> prometheusAllowedNetworks;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        ScrapeAccess scrapeAccess = new ScrapeAccess(prometheusAllowedNetworks);
         http
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/prometheus").access((authentication, context) ->
+                                new AuthorizationDecision(scrapeAccess.allows(context.getRequest().getRemoteAddr())))
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -52,23 +81,32 @@ public class SecurityConfig {
         return http.build();
     }
 
+    @Bean(destroyMethod = "dispose")
+    public JwksKeyCache jwksKeyCache(MeterRegistry meterRegistry) {
+        JwksKeyCache keys = new JwksKeyCache(URI.create(jwkSetUri), jwksRefreshInterval, jwksMinRefreshInterval,
+                jwksFetchTimeout, meterRegistry);
+        keys.start(jwksSeedFile.isBlank() ? null : Path.of(jwksSeedFile));
+        return keys;
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(JwksKeyCache jwksKeyCache) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwksKeyCache));
+        // Claims are checked by the decoder's validator (exp/nbf with clock skew), not by Nimbus
+        processor.setJWTClaimsSetVerifier((claims, context) -> {});
+
+        NimbusJwtDecoder nimbusDecoder = new NimbusJwtDecoder(processor);
+        nimbusDecoder.setJwtValidator(new JwtTimestampValidator());
+
+        JwtDecoder decoder = nimbusDecoder;
+        return jwtCacheEnabled ? new CachingJwtDecoder(decoder, jwtCacheMaximumSize) : decoder;
+    }
 
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
-            // Get realm roles
-            Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
-            Collection<String> realmRoles = List.of();
-            if (realmAccess != null && realmAccess.containsKey("roles")) {
-                realmRoles = (Collection<String>) realmAccess.get("roles");
-            }
-
-            // Convert to Spring Security authorities with ROLE_ prefix
-            return realmRoles.stream()
-                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                    .collect(Collectors.toList());
-        });
+        converter.setJwtGrantedAuthoritiesConverter(new RealmRoleAuthoritiesConverter(false));
 
         return converter;
     }
@@ -2,6 +2,9 @@ package com.example.apiservice2.controller;
 
 
 
+import com.example.apiservice2.cache.SecureDataCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -9,30 +12,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-
 @RestController
 @RequestMapping("/api")
 public class SecureDataController {
 
-    @GetMapping("/data")
-    public ResponseEntity<Map<String, Object>> getSecureData(@AuthenticationPrincipal Jwt jwt) {
-        Map<String, Object> response = new HashMap<>();
-
-        // Extract key claims from the JWT
+    private final SecureDataCache secureDataCache;
 
-        response.put("secure_data", Map.of(
-                "account_balance", "$10,000.00",
-                "ssn_last_four", "1234",
-                "credit_score", 750,
-                "accessed_at", Instant.now()
-        ));
-
-        response.put("service", "api-service-2");
-        response.put("message", "This is secure data from API Service 2");
+    public SecureDataController(SecureDataCache secureDataCache) {
+        this.secureDataCache = secureDataCache;
+    }
 
-        return ResponseEntity.ok(response);
+    // Spring answers If-None-Match / If-Modified-Since that still match with a bodiless 304
+    @GetMapping("/data")
+    public ResponseEntity<byte[]> getSecureData(@AuthenticationPrincipal Jwt jwt) {
+        SecureDataCache.Representation data = secureDataCache.forUser(jwt.getSubject());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(data.etag())
+                .lastModified(data.lastModified())
+                .body(data.body());
     }
 }
@@ -0,0 +1,31 @@
+package com.example.apiservice2.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * Body of {@code GET /api/data}; a fixed shape, so Jackson builds its serializer once and reuses it.
+ */
+public record SecureDataResponse(@JsonProperty("secure_data") SecureData secureData,
+                                 String service,
+                                 String message) {
+
+    public record SecureData(@JsonProperty("account_balance") String accountBalance,
+                             @JsonProperty("ssn_last_four") String ssnLastFour,
+                             @JsonProperty("credit_score") int creditScore,
+                             @JsonProperty("updated_at") Instant updatedAt) {
+
+        /**
+         * The field's name before bodies were cached, kept for existing consumers; it now carries
+         * the same time as updated_at rather than the time of each request.
+         *
+         * @deprecated read {@code updated_at}
+         */
+        @Deprecated
+        @JsonProperty("accessed_at")
+        public Instant accessedAt() {
+            return updatedAt;
+        }
+    }
+}
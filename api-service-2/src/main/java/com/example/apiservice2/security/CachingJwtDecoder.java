@@ -0,0 +1,34 @@
+package com.example.apiservice2.security;
+
+import com.example.apiservice2.cache.TokenDigest;
+import com.example.apiservice2.cache.UntilTokenExpiry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Remembers successfully validated tokens so a repeat bearer token skips signature verification
+ * and claim parsing. Keyed by a digest of the full token text (signature included), so only a
+ * byte-identical token can hit; entries never outlive the token's exp.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<TokenDigest, Jwt> validated;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize) {
+        this.delegate = delegate;
+        this.validated = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        // A JwtException from the delegate propagates and nothing is cached
+        return validated.get(TokenDigest.of(token), key -> delegate.decode(token));
+    }
+}
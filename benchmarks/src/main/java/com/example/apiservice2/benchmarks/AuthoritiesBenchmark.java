@@ -0,0 +1,82 @@
+package com.example.apiservice2.benchmarks;
+
+import com.example.apiservice2.config.SecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * JWT-to-authorities conversion: the original per-request lambda against the memoized
+ * RealmRoleAuthoritiesConverter wired by SecurityConfig. Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthoritiesBenchmark {
+
+    private Jwt jwt;
+    private JwtAuthenticationConverter legacy;
+    private JwtAuthenticationConverter memoized;
+
+    @Setup
+    public void setUp() {
+        jwt = SampleTokens.userToken(1);
+        legacy = createLegacyConverter();
+        memoized = new SecurityConfig().jwtAuthenticationConverter();
+    }
+
+    @Benchmark
+    public Object legacyConverter() {
+        return legacy.convert(jwt);
+    }
+
+    @Benchmark
+    public Object memoizedConverter() {
+        return memoized.convert(jwt);
+    }
+
+    // The converter SecurityConfig used before RealmRoleAuthoritiesConverter
+    @SuppressWarnings("unchecked")
+    private static JwtAuthenticationConverter createLegacyConverter() {
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
+            Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+            Collection<String> realmRoles = List.of();
+            if (realmAccess != null && realmAccess.containsKey("roles")) {
+                realmRoles = (Collection<String>) realmAccess.get("roles");
+            }
+
+            Stream<GrantedAuthority> realmAuthorities = realmRoles.stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+
+            JwtGrantedAuthoritiesConverter scopeConverter = new JwtGrantedAuthoritiesConverter();
+            Collection<GrantedAuthority> scopeAuthorities = scopeConverter.convert(jwt);
+
+            return Stream.concat(realmAuthorities, scopeAuthorities.stream())
+                    .collect(Collectors.toList());
+        });
+        return converter;
+    }
+}
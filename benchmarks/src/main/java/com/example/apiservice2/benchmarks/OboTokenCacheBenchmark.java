@@ -0,0 +1,83 @@
+package com.example.apiservice2.benchmarks;
+
+import com.example.apiservice2.cache.OboToken;
+import com.example.apiservice2.cache.OboTokenCache;
+import com.example.apiservice2.cache.OboTokenKey;
+import com.example.apiservice2.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache lookups for an already-exchanged token: the original raw-JWT string key against the
+ * digest-based OboTokenKey, and a full hit through OboTokenCache as configured by CacheConfig.
+ * The legacy case is the original setup: a Spring Caffeine cache (maximumSize 1000, expireAfterWrite
+ * 4 minutes) holding the Mono that {@code @Cacheable} cached, looked up by "token-audience" through
+ * the Cache API. The SpEL key evaluation and the proxy in front of it aren't included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OboTokenCacheBenchmark {
+
+    private Jwt jwt;
+    private OboToken token;
+    private Cache legacyCache;
+    private OboTokenCache cache;
+
+    @Setup
+    public void setUp() {
+        jwt = SampleTokens.userToken(1);
+        token = new OboToken(SampleTokens.userToken(2).getTokenValue(), Instant.now(),
+                Instant.now().plus(Duration.ofHours(1)), true);
+
+        CaffeineCacheManager legacyCacheManager = new CaffeineCacheManager("obo-tokens");
+        legacyCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(4, TimeUnit.MINUTES));
+        legacyCache = legacyCacheManager.getCache("obo-tokens");
+        legacyCache.put(jwt.getTokenValue() + "-" + SampleTokens.AUDIENCE, Mono.just(token.accessToken()));
+
+        // Refresh-ahead off so a hit never schedules background work
+        cache = new CacheConfig().oboTokenCache(DataSize.ofMegabytes(4), Duration.ofSeconds(30), 0, Duration.ofSeconds(5),
+                Optional.empty());
+        cache.get(OboTokenKey.of(jwt, SampleTokens.AUDIENCE), key -> Mono.just(token)).block();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String legacyStringKeyLookup() {
+        return ((Mono<String>) legacyCache.get(jwt.getTokenValue() + "-" + SampleTokens.AUDIENCE, Mono.class)).block();
+    }
+
+    @Benchmark
+    public OboTokenKey digestKey() {
+        return OboTokenKey.of(jwt, SampleTokens.AUDIENCE);
+    }
+
+    @Benchmark
+    public OboToken cacheHit() {
+        return cache.get(OboTokenKey.of(jwt, SampleTokens.AUDIENCE), key -> Mono.just(token)).block();
+    }
+}
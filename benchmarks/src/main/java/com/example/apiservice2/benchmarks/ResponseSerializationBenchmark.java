@@ -0,0 +1,66 @@
+package com.example.apiservice2.benchmarks;
+
+import com.example.apiservice2.controller.ProfileController;
+import com.example.apiservice2.controller.SecureDataController;
+import com.example.apiservice2.dto.DelegateResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and serializes the controller responses the way Spring MVC/WebFlux would, with an
+ * ObjectMapper configured like Spring Boot's default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private Jwt jwt;
+    private ObjectMapper objectMapper;
+    private SecureDataController secureDataController;
+    private ProfileController profileController;
+    private String downstreamBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwt = SampleTokens.userToken(1);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        secureDataController = new SecureDataController();
+        profileController = new ProfileController(null, null, null, null, null, false);
+        downstreamBody = new String(objectMapper.writeValueAsBytes(secureDataController.getSecureData(jwt).getBody()));
+    }
+
+    @Benchmark
+    public byte[] secureData() throws Exception {
+        return objectMapper.writeValueAsBytes(secureDataController.getSecureData(jwt).getBody());
+    }
+
+    @Benchmark
+    public byte[] profile() throws Exception {
+        return objectMapper.writeValueAsBytes(profileController.getProfile(jwt).getBody());
+    }
+
+    @Benchmark
+    public byte[] delegate() throws Exception {
+        DelegateResponse response = new DelegateResponse("api-service-1", "Successfully delegated call to API Service 2",
+                jwt.getClaimAsString("preferred_username"), Instant.now(), jwt.getClaimAsString("azp"), downstreamBody);
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.apiservice2.benchmarks;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Keycloak-shaped access tokens for offline benchmarks. The token text has a realistic size
+ * (RS256 signature, ~1.5 KB overall) but is not actually signed.
+ */
+final class SampleTokens {
+
+    static final String AUDIENCE = "api-service-2-client";
+
+    private SampleTokens() {
+    }
+
+    static Jwt userToken(int seed) {
+        Instant issuedAt = Instant.now();
+        Instant expiresAt = issuedAt.plus(1, ChronoUnit.HOURS);
+        Map<String, Object> claims = Map.ofEntries(
+                Map.entry("exp", expiresAt),
+                Map.entry("iat", issuedAt),
+                Map.entry("jti", "onrtac:" + seed + "-8d8f-4c47-9c8e-5a7b0c1d2e3f"),
+                Map.entry("iss", "http://localhost:8081/realms/obo-demo-realm"),
+                Map.entry("aud", List.of("api-service-1-client", "account")),
+                Map.entry("sub", "f3c1b2a4-" + seed + "-4c2e-9d7f-1a2b3c4d5e6f"),
+                Map.entry("typ", "Bearer"),
+                Map.entry("azp", "client-app-client"),
+                Map.entry("sid", "0b6f2c1e-" + seed + "-4c1b-8a7d-9e0f1a2b3c4d"),
+                Map.entry("acr", "1"),
+                Map.entry("realm_access", Map.of("roles", List.of("default-roles-obo-demo-realm",
+                        "offline_access", "uma_authorization", "user_role"))),
+                Map.entry("scope", "openid profile email"),
+                Map.entry("email_verified", true),
+                Map.entry("name", "Test User"),
+                Map.entry("preferred_username", "testuser" + seed),
+                Map.entry("given_name", "Test"),
+                Map.entry("family_name", "User"),
+                Map.entry("email", "testuser" + seed + "@example.com"));
+
+        return Jwt.withTokenValue(tokenValue(claims, seed))
+                .header("alg", "RS256")
+                .header("typ", "JWT")
+                .header("kid", "d9Xo1kqQ2m7v8Lp0sT3uW4yZ5aB6cD7eF8gH9iJ0kL")
+                .claims(c -> c.putAll(claims))
+                .build();
+    }
+
+    private static String tokenValue(Map<String, Object> claims, int seed) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString(
+                "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"d9Xo1kqQ2m7v8Lp0sT3uW4yZ5aB6cD7eF8gH9iJ0kL\"}"
+                        .getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] signature = new byte[256];
+        new Random(seed).nextBytes(signature);
+        return header + "." + payload + "." + encoder.encodeToString(signature);
+    }
+}
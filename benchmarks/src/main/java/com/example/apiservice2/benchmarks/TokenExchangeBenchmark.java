@@ -0,0 +1,94 @@
+package com.example.apiservice2.benchmarks;
+
+import com.example.apiservice2.cache.OboTokenCache;
+import com.example.apiservice2.cache.OboTokenKey;
+import com.example.apiservice2.config.CacheConfig;
+import com.example.apiservice2.config.ResilienceProperties;
+import com.example.apiservice2.metrics.OboMetrics;
+import com.example.apiservice2.resilience.OutboundResilience;
+import com.example.apiservice2.service.OnBehalfOfService;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One token exchange through OnBehalfOfService against a stub Keycloak: form encoding of the
+ * request, JSON decoding of the response and the OboToken lifetime calculation. The cache entry
+ * is invalidated first so every invocation performs the exchange.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2) // The WebClient/codec path takes a long time to reach steady state
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenExchangeBenchmark {
+
+    private Jwt jwt;
+    private OboTokenKey key;
+    private OboTokenCache cache;
+    private OnBehalfOfService service;
+
+    @Setup
+    public void setUp() {
+        jwt = SampleTokens.userToken(1);
+        key = OboTokenKey.of(jwt, SampleTokens.AUDIENCE);
+        String responseBody = "{\"access_token\":\"" + SampleTokens.userToken(2).getTokenValue()
+                + "\",\"token_type\":\"Bearer\",\"expires_in\":300}";
+
+        // Encodes the form body like a real connector would, then answers with a canned token response
+        ExchangeFunction keycloakStub = request -> {
+            MockClientHttpRequest outbound = new MockClientHttpRequest(request.method(), request.url());
+            return request.writeTo(outbound, ExchangeStrategies.withDefaults())
+                    .then(Mono.defer(outbound::getBodyAsString))
+                    .then(Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(responseBody)
+                            .build()));
+        };
+
+        cache = new CacheConfig().oboTokenCache(DataSize.ofMegabytes(4), Duration.ofSeconds(30), 0, Duration.ofSeconds(5),
+                Optional.empty());
+        service = new OnBehalfOfService(WebClient.builder().exchangeFunction(keycloakStub).build(), cache,
+                new OboMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP),
+                new OutboundResilience(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+                        new SimpleMeterRegistry(), new ResilienceProperties()));
+        ReflectionTestUtils.setField(service, "keycloakUrl", "http://localhost:8081");
+        ReflectionTestUtils.setField(service, "realm", "obo-demo-realm");
+        ReflectionTestUtils.setField(service, "clientId", "api-service-1-client");
+        ReflectionTestUtils.setField(service, "clientSecret", "api-service-1-secret");
+    }
+
+    @Benchmark
+    public String exchangeToken() {
+        cache.invalidate(key);
+        return service.exchangeToken(jwt, SampleTokens.AUDIENCE).block();
+    }
+}
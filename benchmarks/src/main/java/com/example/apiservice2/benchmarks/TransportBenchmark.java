@@ -0,0 +1,177 @@
+package com.example.apiservice2.benchmarks;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A burst of concurrent WebClient calls, each with a ~1.5 KB bearer token, against a local Reactor
+ * Netty server that answers after a few milliseconds, over HTTP/1.1 and over h2c. The score is the
+ * time for the whole burst. Each iteration starts with a fresh client pool, and the connections the
+ * server accepted, the requests it handled and the bytes it read for them during the iteration are
+ * reported as the {@code connections}, {@code requests} and {@code requestBytes} secondary results
+ * (bytes per request is requestBytes / requests). {@code users} sets how many distinct tokens rotate
+ * through the burst: HPACK only saves on a token it has already sent on that connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark {
+
+    private static final String BODY = "{\"message\":\"Secure data from API Service 2\",\"classification\":\"CONFIDENTIAL\"}";
+
+    @Param({"HTTP11", "H2C"})
+    public String protocol;
+
+    @Param({"256"})
+    public int concurrency;
+
+    @Param({"1", "50"})
+    public int users;
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    private DisposableServer server;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+    private String[] authorizations;
+
+    @Setup
+    public void setUp() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                // Runs once per TCP connection, whichever protocol ends up on it
+                .doOnChannelInit((observer, channel, remoteAddress) -> {
+                    connections.incrementAndGet();
+                    channel.pipeline().addFirst(new ByteCounter());
+                })
+                .handle((request, response) -> {
+                    requests.incrementAndGet();
+                    return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .sendString(Mono.delay(Duration.ofMillis(5)).thenReturn(BODY));
+                })
+                .bindNow();
+
+        authorizations = new String[users];
+        for (int i = 0; i < users; i++) {
+            authorizations[i] = "Bearer " + SampleTokens.userToken(i + 1).getTokenValue();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void connect() {
+        // Built like api-service-1's downstream pools: HTTP/1.1 may open a connection per request in
+        // flight, h2c is capped at h2c-max-connections' default
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("transport-benchmark")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1);
+        if (protocol.equals("H2C")) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder().maxConnections(4).minConnections(1).build());
+        }
+        connectionProvider = builder.build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(HttpProtocol.valueOf(protocol));
+        webClient = WebClient.builder()
+                .baseUrl("http://localhost:" + server.port())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void disconnect() {
+        connectionProvider.dispose();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.disposeNow();
+    }
+
+    /**
+     * What the server saw during one iteration. JMH resets these before each iteration and sums them
+     * across iterations, so they are plain counts.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic {
+
+        public long connections;
+        public long requests;
+        public long requestBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            connections = 0;
+            requests = 0;
+            requestBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public long burst(Traffic traffic) {
+        long connectionsBefore = connections.get();
+        long requestsBefore = requests.get();
+        long bytesBefore = bytesRead.get();
+        long responses = Flux.range(0, concurrency)
+                .flatMap(i -> webClient.get()
+                        .uri("/api/data")
+                        .header(HttpHeaders.AUTHORIZATION, authorizations[i % users])
+                        .retrieve()
+                        .bodyToMono(String.class), concurrency)
+                .count()
+                .block();
+        // The server has read every request by the time its response arrived
+        traffic.connections += connections.get() - connectionsBefore;
+        traffic.requests += requests.get() - requestsBefore;
+        traffic.requestBytes += bytesRead.get() - bytesBefore;
+        return responses;
+    }
+
+    private final class ByteCounter extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf buffer) {
+                bytesRead.addAndGet(buffer.readableBytes());
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
@@ -1,30 +1,23 @@
 echo "Building OAuth 2.0 On-Behalf-Of Flow Demo..."
 
-# Function to check if directory exists and has pom.xml
-build_service() {
-    local service_name=$1
-    local service_dir=$2
-
-    if [ -d "$service_dir" ] && [ -f "$service_dir/pom.xml" ]; then
-        echo "Building $service_name..."
-        cd "$service_dir"
-        mvn clean package -DskipTests -q
-        if [ $? -eq 0 ]; then
-            echo "✅ $service_name built successfully"
-        else
-            echo "❌ Failed to build $service_name"
-            exit 1
-        fi
-        cd ..
-    else
-        echo "⚠️  Skipping $service_name - directory or pom.xml not found"
+# The services depend on the shared common module, so they are built from the root reactor:
+# -am builds (and packages) common first, which a per-directory build on a clean machine can't resolve
+cd "$(dirname "$0")"
+for service_dir in api-service-2 api-service-1 client-app; do
+    if [ ! -f "$service_dir/pom.xml" ]; then
+        echo "❌ $service_dir/pom.xml not found"
+        exit 1
     fi
-}
+done
 
-# Build each service
-build_service "API Service 2" "api-service-2"
-build_service "API Service 1" "api-service-1"
-build_service "Client App" "client-app"
+echo "Building common, API Service 2, API Service 1 and Client App..."
+mvn clean package -DskipTests -q -pl api-service-2,api-service-1,client-app -am
+if [ $? -eq 0 ]; then
+    echo "✅ All services built successfully"
+else
+    echo "❌ Build failed"
+    exit 1
+fi
 
 echo ""
 echo "🎉 All services built successfully!"
@@ -2,28 +2,62 @@ package com.example.apiservice2.config;
 
 
 
+import com.example.apiservice2.security.ConcurrentAuthorizedClientManager;
+import com.example.apiservice2.security.ScrapeAccess;
+import com.example.apiservice2.security.TokenPrefetchSuccessHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Value("${api-service-1.url:http://localhost:8083}")
+    private String apiService1Url;
+
+    @Value("${api-service-1.prefetch-on-login:true}")
+    private boolean prefetchOnLogin;
+
+    @Value("${prometheus.allowed-networks:127.0.0.1/32,::1/128}")
+    private List<String> prometheusAllowedNetworks;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, WebClient webClient,
+                                           OAuth2AuthorizedClientRepository authorizedClientRepository,
+                                           ConcurrentAuthorizedClientManager authorizedClientManager) throws Exception {
+        ScrapeAccess scrapeAccess = new ScrapeAccess(prometheusAllowedNetworks);
         http
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/", "/login", "/error", "/actuator/health").permitAll()
+                        .requestMatchers("/actuator/prometheus").access((authentication, context) ->
+                                new AuthorizationDecision(scrapeAccess.allows(context.getRequest().getRemoteAddr())))
                         .anyRequest().authenticated()
                 )
-                .oauth2Login(oauth2 -> oauth2
-                        .loginPage("/login")
-                        .defaultSuccessUrl("/dashboard", true)
-                )
+                .oauth2Login(oauth2 -> {
+                    oauth2.loginPage("/login");
+                    if (prefetchOnLogin) {
+                        oauth2.successHandler(new TokenPrefetchSuccessHandler("/dashboard", webClient,
+                                authorizedClientRepository, apiService1Url + "/api/tokens/prefetch"));
+                    } else {
+                        oauth2.defaultSuccessUrl("/dashboard", true);
+                    }
+                })
                 .logout(logout -> logout
+                        .addLogoutHandler((request, response, authentication) -> {
+                            if (authentication instanceof OAuth2AuthenticationToken token) {
+                                authorizedClientManager.remove(token.getAuthorizedClientRegistrationId(), token.getName());
+                            }
+                        })
                         .logoutSuccessUrl("/")
                 );
 
@@ -2,27 +2,63 @@ package com.example.apiservice2.config;
 
 
 
+import com.example.apiservice2.security.ConcurrentAuthorizedClientManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServletOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
 
+    // Also picked up by @RegisteredOAuth2AuthorizedClient, so controllers read the same index
+    @Bean(destroyMethod = "dispose")
+    public ConcurrentAuthorizedClientManager authorizedClientManager(
+            ClientRegistrationRepository clientRegistrationRepository,
+            OAuth2AuthorizedClientRepository authorizedClientRepository,
+            MeterRegistry meterRegistry,
+            @Value("${authorized-clients.refresh-ahead:60s}") Duration refreshAhead,
+            @Value("${authorized-clients.sweep-interval:10s}") Duration sweepInterval,
+            @Value("${authorized-clients.idle-timeout:30m}") Duration idleTimeout,
+            @Value("${authorized-clients.refresh-threads:2}") int refreshThreads) {
+        DefaultOAuth2AuthorizedClientManager sessionManager =
+                new DefaultOAuth2AuthorizedClientManager(clientRegistrationRepository, authorizedClientRepository);
+        // Only asked when a user has no authorized client yet; refreshes go through the index
+        sessionManager.setAuthorizedClientProvider(OAuth2AuthorizedClientProviderBuilder.builder()
+                .authorizationCode()
+                .build());
+        return new ConcurrentAuthorizedClientManager(sessionManager, authorizedClientRepository,
+                refreshAhead, sweepInterval, idleTimeout, refreshThreads, meterRegistry);
+    }
+
     @Bean
-    public WebClient webClient(ClientRegistrationRepository clientRegistrationRepository,
-                               OAuth2AuthorizedClientRepository authorizedClientRepository) {
+    public WebClient webClient(WebClient.Builder builder,
+                               ConcurrentAuthorizedClientManager authorizedClientManager,
+                               @Value("${api-service-1.h2c:false}") boolean h2c) {
         ServletOAuth2AuthorizedClientExchangeFilterFunction oauth2Client =
-                new ServletOAuth2AuthorizedClientExchangeFilterFunction(
-                        clientRegistrationRepository,
-                        authorizedClientRepository);
+                new ServletOAuth2AuthorizedClientExchangeFilterFunction(authorizedClientManager);
         oauth2Client.setDefaultOAuth2AuthorizedClient(true);
 
-        return WebClient.builder()
+        if (h2c) {
+            // Prior-knowledge HTTP/2: concurrent calls (the composite dashboard's) share one connection
+            builder = builder.clone()
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create().protocol(HttpProtocol.H2C)));
+        }
+
+        // Boot's builder carries the observation registry, so calls show up as http.client.requests
+        return builder
                 .apply(oauth2Client.oauth2Configuration())
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,10 @@ package com.example.apiservice2.controller;
 
 
 
+import com.example.apiservice2.service.DashboardService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.annotation.RegisteredOAuth2AuthorizedClient;
@@ -9,10 +13,21 @@ import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Map;
 
 @Controller
 public class HomeController {
 
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+
+    public HomeController(DashboardService dashboardService, ObjectMapper objectMapper) {
+        this.dashboardService = dashboardService;
+        this.objectMapper = objectMapper;
+    }
+
     @GetMapping("/")
     public String home() {
         return "index";
@@ -26,6 +41,9 @@ public class HomeController {
     @GetMapping("/dashboard")
     public String dashboard(@AuthenticationPrincipal OidcUser principal,
                             @RegisteredOAuth2AuthorizedClient("keycloak") OAuth2AuthorizedClient authorizedClient,
+                            @RequestParam(defaultValue = "false") boolean composite,
+                            @RequestParam(defaultValue = "false") boolean refresh,
+                            HttpSession session,
                             Model model) {
         if (principal != null) {
             model.addAttribute("username", principal.getClaimAsString("preferred_username"));
@@ -38,6 +56,28 @@ public class HomeController {
                 model.addAttribute("clientName", authorizedClient.getClientRegistration().getClientName());
             }
         }
+
+        // Composite mode: profile and delegated data fetched side by side, rendered as far as they completed
+        if (composite) {
+            model.addAttribute("composite", true);
+            dashboardService.load(session, refresh).forEach((name, section) -> {
+                model.addAttribute(name + "Data", toJson(section.data()));
+                model.addAttribute(name + "Error", section.error());
+                model.addAttribute(name + "FetchedAt", section.fetchedAt());
+            });
+        }
         return "dashboard";
     }
+
+    // Rendered as the JSON api-service-1 returned, not as Map.toString()
+    private String toJson(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Dashboard data is not serializable", e);
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.example.apiservice2.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One api-service-1 call on the composite dashboard: its JSON body, or why it is missing. Kept in
+ * the HTTP session while fresh, so it is serializable.
+ */
+public record DashboardSection(Map<String, Object> data, String error, Instant fetchedAt) implements Serializable {
+
+    public static DashboardSection loaded(Map<String, Object> data) {
+        return new DashboardSection(data, null, Instant.now());
+    }
+
+    public static DashboardSection failed(String error) {
+        return new DashboardSection(null, error, Instant.now());
+    }
+
+    public boolean isLoaded() {
+        return data != null;
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.apiservice2.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.ClientAuthorizationException;
+import org.springframework.security.oauth2.client.ClientAuthorizationRequiredException;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationFailureHandler;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.RefreshTokenOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.RemoveAuthorizedClientOAuth2AuthorizationFailureHandler;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps every signed-in user's authorized client in a concurrent in-memory index, so outbound calls
+ * find the access token without reading the HTTP session. A background sweep refreshes tokens that
+ * are within refresh-ahead of expiring; a request that finds its token expired anyway waits on the
+ * same single refresh for that user instead of starting its own. Users the index doesn't know yet
+ * (first call after login) are read from the session once and indexed from then on. A refresh token
+ * the server rejected is remembered, so its stale session copy is removed instead of re-indexed and
+ * the user is sent to log in again.
+ */
+public class ConcurrentAuthorizedClientManager implements OAuth2AuthorizedClientManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentAuthorizedClientManager.class);
+
+    private final OAuth2AuthorizedClientManager sessionManager;
+    private final OAuth2AuthorizedClientRepository sessionRepository;
+    private final OAuth2AuthorizedClientProvider refreshProvider;
+    private final Duration refreshAhead;
+    private final Duration idleTimeout;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock = Clock.systemUTC();
+    private final ScheduledExecutorService executor;
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<OAuth2AuthorizedClient>> refreshing = new ConcurrentHashMap<>();
+    private final Map<String, Tombstone> rejected = new ConcurrentHashMap<>();
+    private final OAuth2AuthorizationFailureHandler failureHandler;
+
+    public ConcurrentAuthorizedClientManager(OAuth2AuthorizedClientManager sessionManager,
+                                             OAuth2AuthorizedClientRepository sessionRepository,
+                                             Duration refreshAhead, Duration sweepInterval, Duration idleTimeout,
+                                             int refreshThreads, MeterRegistry meterRegistry) {
+        this.sessionManager = sessionManager;
+        this.sessionRepository = sessionRepository;
+        this.refreshAhead = refreshAhead;
+        this.idleTimeout = idleTimeout;
+        this.meterRegistry = meterRegistry;
+
+        // The provider's own check must never veto a refresh that expiresSoon asked for
+        RefreshTokenOAuth2AuthorizedClientProvider provider = new RefreshTokenOAuth2AuthorizedClientProvider();
+        provider.setClockSkew(refreshAhead);
+        this.refreshProvider = provider;
+
+        // Removes the session copy when the failure means the grant is gone (invalid_grant and the like)
+        this.failureHandler = new RemoveAuthorizedClientOAuth2AuthorizationFailureHandler(
+                (clientRegistrationId, principal, attributes) -> {
+                    HttpServletRequest request = (HttpServletRequest) attributes.get(HttpServletRequest.class.getName());
+                    HttpServletResponse response = (HttpServletResponse) attributes.get(HttpServletResponse.class.getName());
+                    if (request != null && response != null) {
+                        sessionRepository.removeAuthorizedClient(clientRegistrationId, principal, request, response);
+                        rejected.remove(key(clientRegistrationId, principal.getName()));
+                    }
+                });
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sweep,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("oauth2.authorized.clients", index::size)
+                .description("Authorized clients held in the in-memory index")
+                .register(meterRegistry);
+    }
+
+    public void dispose() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public OAuth2AuthorizedClient authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        String key = key(authorizeRequest.getClientRegistrationId(), authorizeRequest.getPrincipal().getName());
+        Entry entry = index.get(key);
+        if (entry == null || isNewer(authorizeRequest.getAuthorizedClient(), entry.client)) {
+            entry = load(key, authorizeRequest);
+            if (entry == null) {
+                // Not logged in with this registration: lets the session manager start the authorization
+                return sessionManager.authorize(authorizeRequest);
+            }
+        }
+        entry.lastUsed = clock.instant();
+
+        OAuth2AccessToken token = entry.client.getAccessToken();
+        if (token.getExpiresAt() != null && !clock.instant().isBefore(token.getExpiresAt())) {
+            // Expired before the sweep got to it: this request has to wait, but shares the refresh
+            try {
+                entry = awaitRefresh(key, entry, "on-demand");
+            } catch (OAuth2AuthorizationException e) {
+                failureHandler.onAuthorizationFailure(e, authorizeRequest.getPrincipal(), authorizeRequest.getAttributes());
+                throw e;
+            }
+        } else if (expiresSoon(entry.client)) {
+            refresh(key, entry, "on-demand");
+        }
+        if (!entry.saved) {
+            saveToSession(entry, authorizeRequest);
+        }
+        return entry.client;
+    }
+
+    /**
+     * Drops the user's entry, e.g. on logout, so it is neither refreshed nor served again.
+     */
+    public void remove(String clientRegistrationId, String principalName) {
+        index.remove(key(clientRegistrationId, principalName));
+    }
+
+    // Only reads the client; refreshing it is left to the single-flight path like any other entry
+    private Entry load(String key, OAuth2AuthorizeRequest authorizeRequest) {
+        OAuth2AuthorizedClient client = authorizeRequest.getAuthorizedClient();
+        HttpServletRequest request = authorizeRequest.getAttribute(HttpServletRequest.class.getName());
+        if (client == null && request != null) {
+            client = sessionRepository.loadAuthorizedClient(
+                    authorizeRequest.getClientRegistrationId(), authorizeRequest.getPrincipal(), request);
+        }
+        if (client == null) {
+            return null;
+        }
+        Tombstone tombstone = rejected.get(key);
+        if (tombstone != null) {
+            if (tombstone.matches(client)) {
+                // The copy a background refresh failed on: remove it rather than index a dead grant
+                String clientRegistrationId = authorizeRequest.getClientRegistrationId();
+                failureHandler.onAuthorizationFailure(
+                        new ClientAuthorizationException(new OAuth2Error(OAuth2ErrorCodes.INVALID_GRANT), clientRegistrationId),
+                        authorizeRequest.getPrincipal(), authorizeRequest.getAttributes());
+                throw new ClientAuthorizationRequiredException(clientRegistrationId);
+            }
+            rejected.remove(key, tombstone);
+        }
+        Entry loaded = new Entry(client, authorizeRequest.getPrincipal(), true, clock.instant());
+        return index.merge(key, loaded, (existing, candidate) ->
+                isNewer(candidate.client, existing.client) ? candidate : existing);
+    }
+
+    private Entry awaitRefresh(String key, Entry entry, String trigger) {
+        try {
+            refresh(key, entry, trigger).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        Entry refreshed = index.get(key);
+        return refreshed != null ? refreshed : entry;
+    }
+
+    private CompletableFuture<OAuth2AuthorizedClient> refresh(String key, Entry entry, String trigger) {
+        CompletableFuture<OAuth2AuthorizedClient> started = new CompletableFuture<>();
+        CompletableFuture<OAuth2AuthorizedClient> current = refreshing.putIfAbsent(key, started);
+        if (current != null) {
+            return current;
+        }
+        executor.execute(() -> {
+            // The caller's entry may predate a refresh that just finished; its refresh token is spent by now
+            Entry latest = index.getOrDefault(key, entry);
+            try {
+                OAuth2AuthorizationContext context = OAuth2AuthorizationContext.withAuthorizedClient(latest.client)
+                        .principal(latest.principal)
+                        .build();
+                OAuth2AuthorizedClient refreshed = expiresSoon(latest.client) ? refreshProvider.authorize(context) : null;
+                if (refreshed != null) {
+                    index.computeIfPresent(key, (k, existing) ->
+                            new Entry(refreshed, existing.principal, false, existing.lastUsed));
+                    logger.debug("Refreshed ({}) the access token of {}", trigger, latest.principal.getName());
+                    count(trigger, "success");
+                }
+                started.complete(refreshed != null ? refreshed : latest.client);
+            } catch (RuntimeException e) {
+                // Most likely the refresh token itself expired or was revoked: the user has to log in again
+                logger.warn("Token refresh ({}) for {} failed: {}", trigger, latest.principal.getName(), e.getMessage());
+                if (grantRejected(e) && latest.client.getRefreshToken() != null) {
+                    rejected.put(key, new Tombstone(latest.client.getRefreshToken().getTokenValue(), clock.instant()));
+                }
+                index.remove(key);
+                count(trigger, "failure");
+                started.completeExceptionally(e);
+            } finally {
+                refreshing.remove(key, started);
+            }
+        });
+        return started;
+    }
+
+    // Only users active within the last token lifetime are refreshed ahead; the rest refresh on demand
+    private void sweep() {
+        Instant now = clock.instant();
+        Instant idleSince = now.minus(idleTimeout);
+        index.forEach((key, entry) -> {
+            if (entry.lastUsed.isBefore(idleSince)) {
+                index.remove(key, entry);
+            } else if (!entry.lastUsed.isBefore(now.minus(lifetime(entry.client))) && expiresSoon(entry.client)) {
+                refresh(key, entry, "proactive");
+            }
+        });
+        rejected.values().removeIf(tombstone -> tombstone.rejectedAt().isBefore(idleSince));
+    }
+
+    private Duration lifetime(OAuth2AuthorizedClient client) {
+        OAuth2AccessToken token = client.getAccessToken();
+        if (token.getIssuedAt() == null || token.getExpiresAt() == null) {
+            return refreshAhead;
+        }
+        return Duration.between(token.getIssuedAt(), token.getExpiresAt());
+    }
+
+    private static boolean grantRejected(RuntimeException e) {
+        return e instanceof OAuth2AuthorizationException authorizationException
+                && RemoveAuthorizedClientOAuth2AuthorizationFailureHandler.DEFAULT_REMOVE_AUTHORIZED_CLIENT_ERROR_CODES
+                        .contains(authorizationException.getError().getErrorCode());
+    }
+
+    // e.g. the client a fresh login just stored, handed in while the index still has the previous login's
+    private static boolean isNewer(OAuth2AuthorizedClient candidate, OAuth2AuthorizedClient indexed) {
+        Instant candidateIssued = candidate != null ? candidate.getAccessToken().getIssuedAt() : null;
+        Instant indexedIssued = indexed.getAccessToken().getIssuedAt();
+        return candidateIssued != null && indexedIssued != null && candidateIssued.isAfter(indexedIssued);
+    }
+
+    // Within refresh-ahead of expiry, or half the token's lifetime when it is shorter than that
+    private boolean expiresSoon(OAuth2AuthorizedClient client) {
+        OAuth2AccessToken token = client.getAccessToken();
+        if (client.getRefreshToken() == null || token.getExpiresAt() == null) {
+            return false;
+        }
+        Duration ahead = refreshAhead;
+        if (token.getIssuedAt() != null) {
+            Duration halfLifetime = Duration.between(token.getIssuedAt(), token.getExpiresAt()).dividedBy(2);
+            ahead = halfLifetime.compareTo(ahead) < 0 ? halfLifetime : ahead;
+        }
+        return clock.instant().isAfter(token.getExpiresAt().minus(ahead));
+    }
+
+    // A background refresh has no request to write to, so the session copy catches up on the next call
+    private void saveToSession(Entry entry, OAuth2AuthorizeRequest authorizeRequest) {
+        HttpServletRequest request = authorizeRequest.getAttribute(HttpServletRequest.class.getName());
+        HttpServletResponse response = authorizeRequest.getAttribute(HttpServletResponse.class.getName());
+        if (request != null && response != null) {
+            sessionRepository.saveAuthorizedClient(entry.client, entry.principal, request, response);
+            entry.saved = true;
+        }
+    }
+
+    private void count(String trigger, String outcome) {
+        Counter.builder("oauth2.token.refreshes")
+                .description("Access token refreshes by trigger (proactive, on-demand) and outcome")
+                .tag("trigger", trigger)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + ":" + principalName;
+    }
+
+    private record Tombstone(String refreshToken, Instant rejectedAt) {
+
+        boolean matches(OAuth2AuthorizedClient client) {
+            return client.getRefreshToken() != null && client.getRefreshToken().getTokenValue().equals(refreshToken);
+        }
+    }
+
+    private static final class Entry {
+        final OAuth2AuthorizedClient client;
+        final Authentication principal;
+        volatile boolean saved;
+        volatile Instant lastUsed;
+
+        Entry(OAuth2AuthorizedClient client, Authentication principal, boolean saved, Instant lastUsed) {
+            this.client = client;
+            this.principal = principal;
+            this.saved = saved;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
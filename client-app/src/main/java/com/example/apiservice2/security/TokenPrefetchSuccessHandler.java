@@ -0,0 +1,60 @@
+package com.example.apiservice2.security;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+
+import static org.springframework.security.oauth2.client.web.reactive.function.client.ServletOAuth2AuthorizedClientExchangeFilterFunction.oauth2AuthorizedClient;
+
+/**
+ * After login, asks api-service-1 to exchange OBO tokens for its prefetched audiences without
+ * waiting for the answer, so the user's first delegate call finds them cached.
+ */
+public class TokenPrefetchSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenPrefetchSuccessHandler.class);
+
+    private final WebClient webClient;
+    private final OAuth2AuthorizedClientRepository authorizedClientRepository;
+    private final String prefetchUrl;
+
+    public TokenPrefetchSuccessHandler(String defaultTargetUrl, WebClient webClient,
+                                       OAuth2AuthorizedClientRepository authorizedClientRepository,
+                                       String prefetchUrl) {
+        super(defaultTargetUrl);
+        setAlwaysUseDefaultTargetUrl(true);
+        this.webClient = webClient;
+        this.authorizedClientRepository = authorizedClientRepository;
+        this.prefetchUrl = prefetchUrl;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        if (authentication instanceof OAuth2AuthenticationToken token) {
+            OAuth2AuthorizedClient authorizedClient = authorizedClientRepository.loadAuthorizedClient(
+                    token.getAuthorizedClientRegistrationId(), authentication, request);
+            if (authorizedClient != null) {
+                webClient.post()
+                        .uri(prefetchUrl)
+                        .attributes(oauth2AuthorizedClient(authorizedClient))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .subscribe(
+                                result -> logger.debug("OBO token prefetch done for {}", token.getName()),
+                                error -> logger.warn("OBO token prefetch failed for {}: {}", token.getName(), error.getMessage()));
+            }
+        }
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
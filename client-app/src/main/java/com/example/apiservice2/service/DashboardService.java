@@ -0,0 +1,120 @@
+package com.example.apiservice2.service;
+
+import com.example.apiservice2.dto.DashboardSection;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the composite dashboard's api-service-1 sections concurrently, each under its own timeout,
+ * so the page waits for the slowest call rather than the sum of them and shows whatever completed.
+ * Loaded sections are reused from the user's session until they are cache-ttl old.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
+    private static final String CACHE_ATTRIBUTE = DashboardService.class.getName() + ".sections";
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
+
+    // Section name -> api-service-1 path, in display order
+    private static final Map<String, String> SECTIONS = new LinkedHashMap<>();
+
+    static {
+        SECTIONS.put("profile", "/api/profile");
+        SECTIONS.put("delegate", "/api/delegate");
+    }
+
+    private final WebClient webClient;
+    private final String apiService1Url;
+    private final Duration callTimeout;
+    private final Duration cacheTtl;
+
+    public DashboardService(WebClient webClient,
+                            @Value("${api-service-1.url:http://localhost:8083}") String apiService1Url,
+                            @Value("${dashboard.call-timeout:2s}") Duration callTimeout,
+                            @Value("${dashboard.cache-ttl:15s}") Duration cacheTtl) {
+        this.webClient = webClient;
+        this.apiService1Url = apiService1Url;
+        this.callTimeout = callTimeout;
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Returns every section by name, loaded or failed. {@code refresh} skips the session cache.
+     */
+    public Map<String, DashboardSection> load(HttpSession session, boolean refresh) {
+        Map<String, DashboardSection> cache = sessionCache(session);
+        Instant freshAfter = Instant.now().minus(cacheTtl);
+
+        Map<String, Mono<DashboardSection>> calls = new LinkedHashMap<>();
+        SECTIONS.forEach((name, path) -> {
+            DashboardSection cached = refresh ? null : cache.get(name);
+            calls.put(name, cached != null && cached.fetchedAt().isAfter(freshAfter)
+                    ? Mono.just(cached)
+                    : fetch(name, path).doOnNext(section -> {
+                        if (section.isLoaded()) {
+                            cache.put(name, section);
+                        }
+                    }));
+        });
+
+        // The WebClient calls are non-blocking, so zip has them all in flight at once
+        return Mono.zip(calls.values(), results -> {
+            Map<String, DashboardSection> sections = new LinkedHashMap<>();
+            int i = 0;
+            for (String name : calls.keySet()) {
+                sections.put(name, (DashboardSection) results[i++]);
+            }
+            return sections;
+        }).block();
+    }
+
+    private Mono<DashboardSection> fetch(String name, String path) {
+        return webClient
+                .get()
+                .uri(apiService1Url + path)
+                .retrieve()
+                .bodyToMono(JSON_OBJECT)
+                .timeout(callTimeout)
+                .map(DashboardSection::loaded)
+                .onErrorResume(error -> {
+                    logger.warn("Dashboard section {} failed: {}", name, error.toString());
+                    return Mono.just(DashboardSection.failed(describe(error)));
+                });
+    }
+
+    private String describe(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return "No response within " + callTimeout.toMillis() + " ms";
+        }
+        if (error instanceof WebClientResponseException e) {
+            return "API Service 1 returned " + e.getStatusCode().value();
+        }
+        return "API Service 1 unavailable";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, DashboardSection> sessionCache(HttpSession session) {
+        Map<String, DashboardSection> cache = (Map<String, DashboardSection>) session.getAttribute(CACHE_ATTRIBUTE);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            session.setAttribute(CACHE_ATTRIBUTE, cache);
+        }
+        return cache;
+    }
+}
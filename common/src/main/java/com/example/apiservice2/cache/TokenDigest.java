@@ -0,0 +1,62 @@
+package com.example.apiservice2.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * SHA-256 digest of a token (or of claims identifying it), usable as a fixed-size map key.
+ */
+public final class TokenDigest {
+
+    public static final int LENGTH = 32;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final byte[] bytes;
+    private final int hash;
+
+    private TokenDigest(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    public static TokenDigest of(String value) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return new TokenDigest(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Unpadded base64url, as used in shared-store keys
+    public static TokenDigest fromEncoded(String encoded) {
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException("Not a SHA-256 digest: " + encoded);
+        }
+        return new TokenDigest(bytes);
+    }
+
+    public String encoded() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TokenDigest other)) return false;
+        return hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.apiservice2.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Expires a validated token's cache entry at the token's exp (immediately if it has none), whatever
+ * happens to the entry in between.
+ */
+public class UntilTokenExpiry implements Expiry<TokenDigest, Jwt> {
+
+    @Override
+    public long expireAfterCreate(TokenDigest key, Jwt jwt, long currentTime) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return 0;
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt);
+        return remaining.isNegative() ? 0 : remaining.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(TokenDigest key, Jwt jwt, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(TokenDigest key, Jwt jwt, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
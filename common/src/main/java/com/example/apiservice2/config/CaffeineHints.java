@@ -0,0 +1,40 @@
+package com.example.apiservice2.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.regex.Pattern;
+
+/**
+ * Native-image hints for Caffeine, which picks a generated cache and node class per builder
+ * configuration and loads it by name. Imported by each service's {@code NativeConfig}.
+ */
+public class CaffeineHints implements RuntimeHintsRegistrar {
+
+    private static final String PACKAGE = "com.github.benmanes.caffeine.cache";
+    private static final Pattern GENERATED = Pattern.compile("[A-Z]+");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        try {
+            Resource[] classes = new PathMatchingResourcePatternResolver(classLoader)
+                    .getResources("classpath*:" + PACKAGE.replace('.', '/') + "/*.class");
+            for (Resource resource : classes) {
+                String simpleName = StringUtils.stripFilenameExtension(resource.getFilename());
+                if (GENERATED.matcher(simpleName).matches()) {
+                    hints.reflection().registerType(TypeReference.of(PACKAGE + "." + simpleName),
+                            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
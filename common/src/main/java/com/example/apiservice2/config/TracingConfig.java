@@ -0,0 +1,34 @@
+package com.example.apiservice2.config;
+
+import com.example.apiservice2.tracing.FileSpanExporter;
+import com.example.apiservice2.tracing.InMemorySpanExporter;
+import com.example.apiservice2.tracing.SpansEndpoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+// Boot's OpenTelemetry auto-configuration hands every SpanExporter bean to its batch span processor
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "file")
+    public FileSpanExporter fileSpanExporter(@Value("${tracing.file:traces/${spring.application.name}.jsonl}") Path file) {
+        return new FileSpanExporter(file);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "memory")
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${tracing.memory.capacity:10000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "memory")
+    public SpansEndpoint spansEndpoint(InMemorySpanExporter exporter) {
+        return new SpansEndpoint(exporter);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.apiservice2.security;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The issuer's signing keys, held in memory so token validation doesn't wait on the JWKS endpoint.
+ * The set is fetched at startup (after an optional seed from a local JWKS file) and again every
+ * refresh interval in the background. A token whose kid isn't in the set triggers one fetch that
+ * every concurrent caller shares, at most once per minimum refresh interval, which picks up
+ * rotated keys without letting unknown kids hammer the issuer.
+ */
+public class JwksKeyCache implements JWKSource<SecurityContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyCache.class);
+
+    private final HttpRequest request;
+    private final Duration refreshInterval;
+    private final Duration minRefreshInterval;
+    private final Duration fetchTimeout;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CompletableFuture<JWKSet>> inFlight = new AtomicReference<>();
+
+    private volatile JWKSet keys = new JWKSet();
+    private volatile long lastFetchStarted;
+
+    public JwksKeyCache(URI jwkSetUri, Duration refreshInterval, Duration minRefreshInterval,
+                        Duration fetchTimeout, MeterRegistry meterRegistry) {
+        this.request = HttpRequest.newBuilder(jwkSetUri)
+                .header("Accept", "application/json")
+                .timeout(fetchTimeout)
+                .build();
+        this.refreshInterval = refreshInterval;
+        this.minRefreshInterval = minRefreshInterval;
+        this.fetchTimeout = fetchTimeout;
+        this.meterRegistry = meterRegistry;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(fetchTimeout).build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastFetchStarted = System.nanoTime() - minRefreshInterval.toNanos();
+
+        Gauge.builder("jwks.keys", () -> keys.getKeys().size())
+                .description("Signing keys currently held for JWT validation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the seed file, if any, then starts the first fetch and the background refresh.
+     * Neither blocks: a token arriving before the first fetch completes waits on that fetch.
+     */
+    public void start(Path seedFile) {
+        if (seedFile != null) {
+            try {
+                keys = JWKSet.parse(Files.readString(seedFile));
+                logger.info("Seeded {} JWKS keys from {}", keys.getKeys().size(), seedFile);
+            } catch (Exception e) {
+                logger.warn("Couldn't seed JWKS keys from {}: {}", seedFile, e.getMessage());
+            }
+        }
+        fetch("startup");
+        scheduler.scheduleWithFixedDelay(() -> fetch("scheduled"),
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void dispose() {
+        scheduler.shutdownNow();
+    }
+
+    public CompletableFuture<List<JWK>> select(JWSHeader header) {
+        JWKMatcher matcher = JWKMatcher.forJWSHeader(header);
+        return matcher == null ? CompletableFuture.completedFuture(List.of()) : select(new JWKSelector(matcher));
+    }
+
+    /**
+     * Keys matching the selector. Completes immediately from the held set, or after a shared fetch
+     * when nothing matches; a failed fetch completes with no keys, so the token is rejected.
+     */
+    public CompletableFuture<List<JWK>> select(JWKSelector selector) {
+        List<JWK> matches = selector.select(keys);
+        if (!matches.isEmpty() || !mayFetch()) {
+            return CompletableFuture.completedFuture(matches);
+        }
+        return fetch("unknown-kid")
+                .thenApply(selector::select)
+                .exceptionally(error -> List.of());
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) throws KeySourceException {
+        try {
+            return select(selector).get(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KeySourceException("Interrupted while fetching the JWKS", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KeySourceException("Couldn't fetch the JWKS", e);
+        }
+    }
+
+    // A fetch already in flight can always be joined; starting a new one is rate limited
+    private boolean mayFetch() {
+        return inFlight.get() != null || System.nanoTime() - lastFetchStarted >= minRefreshInterval.toNanos();
+    }
+
+    private CompletableFuture<JWKSet> fetch(String trigger) {
+        while (true) {
+            CompletableFuture<JWKSet> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<JWKSet> started = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, started)) {
+                lastFetchStarted = System.nanoTime();
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .thenApply(JwksKeyCache::parse)
+                        .whenComplete((fetched, error) -> {
+                            if (error == null) {
+                                logChanges(fetched, trigger);
+                                keys = fetched;
+                            } else {
+                                logger.warn("JWKS fetch ({}) from {} failed: {}", trigger, request.uri(), error.toString());
+                            }
+                            count(trigger, error == null ? "success" : "failure");
+                            inFlight.set(null);
+                            if (error == null) {
+                                started.complete(fetched);
+                            } else {
+                                started.completeExceptionally(error);
+                            }
+                        });
+                return started;
+            }
+        }
+    }
+
+    private static JWKSet parse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("JWKS endpoint returned " + response.statusCode());
+        }
+        try {
+            return JWKSet.parse(response.body());
+        } catch (ParseException e) {
+            throw new IllegalStateException("Malformed JWKS: " + e.getMessage(), e);
+        }
+    }
+
+    private void logChanges(JWKSet fetched, String trigger) {
+        List<String> before = keys.getKeys().stream().map(JWK::getKeyID).sorted().toList();
+        List<String> after = fetched.getKeys().stream().map(JWK::getKeyID).sorted().toList();
+        if (!before.equals(after)) {
+            logger.info("JWKS keys changed ({}): {} -> {}", trigger, before, after);
+        }
+    }
+
+    private void count(String trigger, String outcome) {
+        Counter.builder("jwks.fetches")
+                .description("JWKS fetches by trigger (startup, scheduled, unknown-kid) and outcome")
+                .tag("trigger", trigger)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.apiservice2.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps Keycloak realm roles to ROLE_ authorities (plus SCOPE_ authorities when enabled).
+ * <p>
+ * Most requests carry one of a handful of role/scope combinations, so the resulting authority
+ * list is memoized per combination and individual authorities are shared through a bounded
+ * canonical table; the common case allocates nothing beyond the claim lookups.
+ */
+public class RealmRoleAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private static final int MAX_CANONICAL_AUTHORITIES = 1024;
+    private static final int MAX_MEMOIZED_ROLE_SETS = 1000;
+
+    private final JwtGrantedAuthoritiesConverter scopeConverter;
+    private final Map<String, GrantedAuthority> canonical = new ConcurrentHashMap<>();
+    private final Cache<AuthorityKey, List<GrantedAuthority>> memoized = Caffeine.newBuilder()
+            .maximumSize(MAX_MEMOIZED_ROLE_SETS)
+            .build();
+
+    public RealmRoleAuthoritiesConverter(boolean includeScopes) {
+        this.scopeConverter = includeScopes ? new JwtGrantedAuthoritiesConverter() : null;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        AuthorityKey key = new AuthorityKey(realmRoles(jwt), scopeConverter != null ? scopes(jwt) : null);
+        List<GrantedAuthority> authorities = memoized.getIfPresent(key);
+        if (authorities == null) {
+            authorities = map(key, jwt);
+            // Claim collections are mutable; keep immutable copies as the memo key. Lists rather than
+            // sets, so the next lookup can compare with the raw claims without copying them
+            memoized.put(new AuthorityKey(List.copyOf(key.roles()), immutable(key.scopes())), authorities);
+        }
+        return authorities;
+    }
+
+    private List<GrantedAuthority> map(AuthorityKey key, Jwt jwt) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : key.roles()) {
+            authorities.add(canonical("ROLE_" + role.toUpperCase(Locale.ROOT)));
+        }
+        if (scopeConverter != null) {
+            for (GrantedAuthority scope : scopeConverter.convert(jwt)) {
+                authorities.add(canonical(scope.getAuthority()));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+
+    private GrantedAuthority canonical(String authority) {
+        GrantedAuthority existing = canonical.get(authority);
+        if (existing != null) {
+            return existing;
+        }
+        if (canonical.size() >= MAX_CANONICAL_AUTHORITIES) {
+            return new SimpleGrantedAuthority(authority);
+        }
+        return canonical.computeIfAbsent(authority, SimpleGrantedAuthority::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<String> realmRoles(Jwt jwt) {
+        Object realmAccess = jwt.getClaims().get("realm_access");
+        if (realmAccess instanceof Map<?, ?> claims && claims.get("roles") instanceof Collection<?> roles) {
+            return (Collection<String>) roles;
+        }
+        return List.of();
+    }
+
+    private static Object scopes(Jwt jwt) {
+        Object scope = jwt.getClaims().get("scope");
+        return scope != null ? scope : jwt.getClaims().get("scp");
+    }
+
+    // "scope" is a space-separated string, "scp" a collection
+    private static Object immutable(Object scopes) {
+        return scopes instanceof Collection<?> collection ? List.copyOf(collection) : scopes;
+    }
+
+    private record AuthorityKey(Collection<String> roles, Object scopes) {
+    }
+}
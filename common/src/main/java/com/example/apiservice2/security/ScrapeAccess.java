@@ -0,0 +1,26 @@
+package com.example.apiservice2.security;
+
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.List;
+
+/**
+ * The networks allowed to read {@code /actuator/prometheus}, as CIDR ranges or single addresses.
+ * No token is needed from these; requests from any other address are denied, even with a valid token.
+ */
+public class ScrapeAccess {
+
+    private final List<IpAddressMatcher> networks;
+
+    public ScrapeAccess(List<String> networks) {
+        this.networks = networks.stream()
+                .map(String::trim)
+                .filter(network -> !network.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    public boolean allows(String remoteAddress) {
+        return remoteAddress != null && networks.stream().anyMatch(network -> network.matches(remoteAddress));
+    }
+}
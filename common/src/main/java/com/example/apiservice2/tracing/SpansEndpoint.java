@@ -0,0 +1,26 @@
+package com.example.apiservice2.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/spans lists the spans held by the in-memory exporter, optionally for one traceId.
+ */
+@Endpoint(id = "spans")
+public class SpansEndpoint {
+
+    private final InMemorySpanExporter exporter;
+
+    public SpansEndpoint(InMemorySpanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> spans(@Nullable String traceId) {
+        return exporter.spans(traceId);
+    }
+}
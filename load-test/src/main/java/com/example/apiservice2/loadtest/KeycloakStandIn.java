@@ -0,0 +1,307 @@
+package com.example.apiservice2.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Just enough of Keycloak's obo-demo-realm for the OBO chain to run locally: OIDC discovery,
+ * an auto-approving authorization endpoint, authorization-code / refresh / token-exchange
+ * grants, userinfo and JWKS. Tokens are RS256-signed with a key generated at startup.
+ */
+public class KeycloakStandIn implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakStandIn.class);
+
+    static final String REALM_PATH = "/realms/obo-demo-realm";
+    private static final String OIDC_PATH = REALM_PATH + "/protocol/openid-connect";
+    private static final String TOKEN_EXCHANGE_GRANT = "urn:ietf:params:oauth:grant-type:token-exchange";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final RSAKey signingKey;
+    private final RSASSASigner signer;
+    private final JWSVerifier verifier;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration tokenLifetime;
+    private final Duration exchangeLatency;
+    private final Map<String, Login> pendingCodes = new ConcurrentHashMap<>();
+    private final Map<String, Login> refreshTokens = new ConcurrentHashMap<>();
+    private final AtomicLong users = new AtomicLong();
+    private final AtomicLong tokenExchanges = new AtomicLong();
+    private final AtomicLong logins = new AtomicLong();
+
+    private KeycloakStandIn(Duration tokenLifetime, Duration exchangeLatency, int threads) throws Exception {
+        this.tokenLifetime = tokenLifetime;
+        this.exchangeLatency = exchangeLatency;
+        this.signingKey = new RSAKeyGenerator(2048)
+                .keyID(UUID.randomUUID().toString())
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(JWSAlgorithm.RS256)
+                .generate();
+        this.signer = new RSASSASigner(signingKey);
+        this.verifier = new RSASSAVerifier(signingKey.toPublicJWK());
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        this.server.createContext(REALM_PATH, this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public static KeycloakStandIn start(Duration tokenLifetime, Duration exchangeLatency, int threads) throws Exception {
+        KeycloakStandIn standIn = new KeycloakStandIn(tokenLifetime, exchangeLatency, threads);
+        standIn.server.start();
+        logger.info("Keycloak stand-in listening on {}", standIn.baseUrl());
+        return standIn;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String issuer() {
+        return baseUrl() + REALM_PATH;
+    }
+
+    public long tokenExchanges() {
+        return tokenExchanges.get();
+    }
+
+    public long logins() {
+        return logins.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            switch (path) {
+                case REALM_PATH + "/.well-known/openid-configuration" -> sendJson(exchange, 200, discovery());
+                case OIDC_PATH + "/auth" -> authorize(exchange);
+                case OIDC_PATH + "/token" -> token(exchange);
+                case OIDC_PATH + "/userinfo" -> userInfo(exchange);
+                case OIDC_PATH + "/certs" -> sendJson(exchange, 200, new JWKSet(signingKey.toPublicJWK()).toJSONObject());
+                default -> sendJson(exchange, 404, Map.of("error", "not_found"));
+            }
+        } catch (Exception e) {
+            logger.error("Stand-in request failed", e);
+        }
+    }
+
+    private Map<String, Object> discovery() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("issuer", issuer());
+        metadata.put("authorization_endpoint", baseUrl() + OIDC_PATH + "/auth");
+        metadata.put("token_endpoint", baseUrl() + OIDC_PATH + "/token");
+        metadata.put("userinfo_endpoint", baseUrl() + OIDC_PATH + "/userinfo");
+        metadata.put("jwks_uri", baseUrl() + OIDC_PATH + "/certs");
+        metadata.put("grant_types_supported", List.of("authorization_code", "refresh_token", TOKEN_EXCHANGE_GRANT));
+        metadata.put("response_types_supported", List.of("code"));
+        metadata.put("subject_types_supported", List.of("public"));
+        metadata.put("id_token_signing_alg_values_supported", List.of("RS256"));
+        metadata.put("token_endpoint_auth_methods_supported", List.of("client_secret_basic", "client_secret_post", "none"));
+        metadata.put("code_challenge_methods_supported", List.of("S256", "plain"));
+        metadata.put("scopes_supported", List.of("openid", "profile", "email"));
+        return metadata;
+    }
+
+    // Every authorization request is approved for a fresh load-test user
+    private void authorize(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseForm(exchange.getRequestURI().getRawQuery());
+        String username = "loadtest-user-" + users.incrementAndGet();
+        String code = UUID.randomUUID().toString();
+        pendingCodes.put(code, new Login(username, params.get("client_id"), params.get("nonce"), UUID.randomUUID().toString()));
+
+        String location = params.get("redirect_uri")
+                + "?code=" + code
+                + "&state=" + URLEncoder.encode(params.getOrDefault("state", ""), StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+    }
+
+    private void token(HttpExchange exchange) throws Exception {
+        Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String grantType = form.getOrDefault("grant_type", "");
+        switch (grantType) {
+            case "authorization_code" -> {
+                Login login = pendingCodes.remove(form.getOrDefault("code", ""));
+                if (login == null) {
+                    sendJson(exchange, 400, Map.of("error", "invalid_grant"));
+                    return;
+                }
+                logins.incrementAndGet();
+                sendJson(exchange, 200, userTokens(login));
+            }
+            case "refresh_token" -> {
+                Login login = refreshTokens.remove(form.getOrDefault("refresh_token", ""));
+                if (login == null) {
+                    sendJson(exchange, 400, Map.of("error", "invalid_grant"));
+                    return;
+                }
+                sendJson(exchange, 200, userTokens(login));
+            }
+            case TOKEN_EXCHANGE_GRANT -> exchangeToken(exchange, form);
+            default -> sendJson(exchange, 400, Map.of("error", "unsupported_grant_type"));
+        }
+    }
+
+    private Map<String, Object> userTokens(Login login) throws JOSEException {
+        Instant now = Instant.now();
+        String refreshToken = UUID.randomUUID().toString();
+        refreshTokens.put(refreshToken, login);
+
+        JWTClaimsSet accessToken = userClaims(login, now)
+                .audience(List.of("api-service-1-client", "account"))
+                .claim("azp", login.clientId())
+                .claim("typ", "Bearer")
+                .claim("scope", "openid profile email")
+                .build();
+        JWTClaimsSet idToken = userClaims(login, now)
+                .audience(login.clientId())
+                .claim("azp", login.clientId())
+                .claim("typ", "ID")
+                .claim("nonce", login.nonce())
+                .build();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("access_token", sign(accessToken));
+        response.put("expires_in", tokenLifetime.toSeconds());
+        response.put("refresh_token", refreshToken);
+        response.put("token_type", "Bearer");
+        response.put("id_token", sign(idToken));
+        response.put("scope", "openid profile email");
+        return response;
+    }
+
+    private JWTClaimsSet.Builder userClaims(Login login, Instant now) {
+        return new JWTClaimsSet.Builder()
+                .issuer(issuer())
+                .subject(UUID.nameUUIDFromBytes(login.username().getBytes(StandardCharsets.UTF_8)).toString())
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(tokenLifetime)))
+                .claim("sid", login.sessionId())
+                .claim("preferred_username", login.username())
+                .claim("email", login.username() + "@example.com")
+                .claim("email_verified", true)
+                .claim("name", "Load Test User")
+                .claim("realm_access", Map.of("roles", List.of("user_role", "offline_access")));
+    }
+
+    private void exchangeToken(HttpExchange exchange, Map<String, String> form) throws Exception {
+        tokenExchanges.incrementAndGet();
+        if (!exchangeLatency.isZero()) {
+            Thread.sleep(exchangeLatency.toMillis());
+        }
+
+        SignedJWT subjectToken = SignedJWT.parse(form.getOrDefault("subject_token", ""));
+        if (!subjectToken.verify(verifier)) {
+            sendJson(exchange, 400, Map.of("error", "invalid_token"));
+            return;
+        }
+
+        JWTClaimsSet subject = subjectToken.getJWTClaimsSet();
+        Instant now = Instant.now();
+        JWTClaimsSet exchanged = new JWTClaimsSet.Builder(subject)
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(tokenLifetime)))
+                .audience(form.get("audience"))
+                .claim("azp", form.get("client_id"))
+                .build();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("access_token", sign(exchanged));
+        response.put("expires_in", tokenLifetime.toSeconds());
+        response.put("token_type", "Bearer");
+        sendJson(exchange, 200, response);
+    }
+
+    private void userInfo(HttpExchange exchange) throws IOException, ParseException, JOSEException {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            sendJson(exchange, 401, Map.of("error", "invalid_token"));
+            return;
+        }
+        SignedJWT token = SignedJWT.parse(authorization.substring("Bearer ".length()));
+        if (!token.verify(verifier)) {
+            sendJson(exchange, 401, Map.of("error", "invalid_token"));
+            return;
+        }
+        JWTClaimsSet claims = token.getJWTClaimsSet();
+        Map<String, Object> userInfo = new LinkedHashMap<>();
+        userInfo.put("sub", claims.getSubject());
+        userInfo.put("preferred_username", claims.getClaim("preferred_username"));
+        userInfo.put("email", claims.getClaim("email"));
+        userInfo.put("email_verified", claims.getClaim("email_verified"));
+        userInfo.put("name", claims.getClaim("name"));
+        sendJson(exchange, 200, userInfo);
+    }
+
+    private String sign(JWTClaimsSet claims) throws JOSEException {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> parseForm(String encoded) {
+        Map<String, String> params = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return params;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private record Login(String username, String clientId, String nonce, String sessionId) {
+    }
+}
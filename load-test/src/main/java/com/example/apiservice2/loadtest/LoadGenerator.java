@@ -0,0 +1,171 @@
+package com.example.apiservice2.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load: each virtual user logs in to client-app once through the full OIDC
+ * redirect dance, then requests one page back-to-back for the warm-up and measurement windows.
+ */
+class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final String clientAppUrl;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+
+    LoadGenerator(String clientAppUrl, int concurrency, Duration warmup, Duration duration, Duration requestTimeout) {
+        this.clientAppUrl = clientAppUrl;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.requestTimeout = requestTimeout;
+    }
+
+    Result run(String flow, String path) throws InterruptedException {
+        URI uri = URI.create(clientAppUrl + path);
+        CountDownLatch loggedIn = new CountDownLatch(concurrency);
+        CountDownLatch go = new CountDownLatch(1);
+        Window window = new Window();
+        AtomicLong errors = new AtomicLong();
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        List<Thread> users = new ArrayList<>();
+
+        for (int i = 0; i < concurrency; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            users.add(new Thread(() -> {
+                HttpClient client = newClient();
+                try {
+                    login(client);
+                } catch (Exception e) {
+                    if (errors.incrementAndGet() == 1) {
+                        logger.warn("Login failed (further login failures are only counted): {}", e.toString());
+                    }
+                    return;
+                } finally {
+                    loggedIn.countDown();
+                }
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (System.nanoTime() < window.end) {
+                    long start = System.nanoTime();
+                    boolean ok = get(client, uri);
+                    long elapsed = System.nanoTime() - start;
+                    if (start < window.start) {
+                        continue; // warm-up
+                    }
+                    if (ok) {
+                        recorder.record(elapsed);
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                }
+            }, "vu-" + flow + "-" + i));
+        }
+
+        // The load window opens once every user is logged in, so logins don't skew the numbers
+        users.forEach(Thread::start);
+        loggedIn.await();
+        window.start = System.nanoTime() + warmup.toNanos();
+        window.end = window.start + duration.toNanos();
+        go.countDown();
+        for (Thread user : users) {
+            user.join();
+        }
+
+        long[] latencies = recorders.stream().map(LatencyRecorder::toArray).flatMapToLong(Arrays::stream).toArray();
+        return new Result(flow, concurrency, duration, latencies, errors.get());
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(requestTimeout)
+                .build();
+    }
+
+    private void login(HttpClient client) throws Exception {
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create(clientAppUrl + "/oauth2/authorization/keycloak"))
+                        .timeout(requestTimeout)
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200 || !response.uri().getPath().equals("/dashboard")) {
+            throw new IllegalStateException("Login ended at " + response.uri() + " with " + response.statusCode());
+        }
+    }
+
+    private boolean get(HttpClient client, URI uri) {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(uri).timeout(requestTimeout).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            // client-app renders downstream failures into a 200 page, so check the body too
+            return response.statusCode() == 200 && !response.body().contains("API call failed")
+                    && !response.body().contains("Unexpected error");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Written before the go latch is released, read by the users after it
+    private static final class Window {
+        volatile long start;
+        volatile long end;
+    }
+
+    private static final class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    record Result(String flow, int concurrency, Duration duration, long[] latencies, long errors) {
+
+        double throughput() {
+            return latencies.length / (duration.toMillis() / 1000.0);
+        }
+
+        double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+        }
+    }
+}
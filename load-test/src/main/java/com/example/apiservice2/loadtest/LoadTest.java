@@ -0,0 +1,159 @@
+package com.example.apiservice2.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a Keycloak stand-in in this JVM, boots api-service-2, api-service-1 and client-app against
+ * it and drives client-app's delegate and profile pages at a fixed concurrency, reporting
+ * throughput and latency percentiles per flow.
+ * <p>
+ * Options (all {@code --name=value}): project-dir, concurrency, warmup, duration, flows,
+ * token-lifetime, exchange-latency, request-timeout, service-jvm-args (space separated), tracing
+ * (none, memory or file; file writes each service's spans to load-test/target/logs/&lt;service&gt;-spans.jsonl),
+ * virtual-threads (true runs client-app's request handling on virtual threads; needs this JVM to be Java 21+,
+ * since the services are started with it).
+ */
+public class LoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final Map<String, String> FLOW_PATHS = Map.of(
+            "delegate", "/api/delegate-call",
+            "profile", "/api/profile",
+            "dashboard", "/dashboard?composite=true",
+            // Bypasses the per-session cache, so every request fans out to api-service-1 again
+            "dashboard-refresh", "/dashboard?composite=true&refresh=true");
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(90);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Path projectDir = Path.of(options.getOrDefault("project-dir", ".")).toAbsolutePath().normalize();
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "10s"));
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s"));
+        Duration tokenLifetime = Duration.parse("PT" + options.getOrDefault("token-lifetime", "300s"));
+        Duration exchangeLatency = Duration.parse("PT" + options.getOrDefault("exchange-latency", "0s"));
+        Duration requestTimeout = Duration.parse("PT" + options.getOrDefault("request-timeout", "10s"));
+        List<String> flows = List.of(options.getOrDefault("flows", "delegate,profile").split(","));
+
+        List<String> serviceJvmArgs = List.of(options.getOrDefault("service-jvm-args", "-Xmx512m").split(" "));
+        String tracing = options.getOrDefault("tracing", "none");
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalArgumentException("--virtual-threads=true needs Java 21+, this JVM is " + Runtime.version());
+        }
+
+        KeycloakStandIn keycloak = KeycloakStandIn.start(tokenLifetime, exchangeLatency, 64);
+        Path logDir = projectDir.resolve("load-test/target/logs");
+        ServiceLauncher services = new ServiceLauncher(logDir, serviceJvmArgs);
+        int apiService2Port = freePort();
+        int apiService1Port = freePort();
+        int clientAppPort = freePort();
+        String jwkSetUri = keycloak.issuer() + "/protocol/openid-connect/certs";
+
+        services.start("api-service-2",
+                projectDir.resolve("api-service-2/target/api-service-2-0.0.1-SNAPSHOT.jar"), apiService2Port,
+                withCommonArgs(apiService2Port, tracing, logDir.resolve("api-service-2-spans.jsonl"),
+                        "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + jwkSetUri),
+                STARTUP_TIMEOUT);
+        services.start("api-service-1",
+                projectDir.resolve("api-service-1/target/api-service-1-0.0.1-SNAPSHOT-exec.jar"), apiService1Port,
+                withCommonArgs(apiService1Port, tracing, logDir.resolve("api-service-1-spans.jsonl"),
+                        "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + jwkSetUri,
+                        "--keycloak.url=" + keycloak.baseUrl(),
+                        "--api-service-2.url=http://localhost:" + apiService2Port),
+                STARTUP_TIMEOUT);
+        services.start("client-app",
+                projectDir.resolve("client-app/target/client-app-0.0.1-SNAPSHOT.jar"), clientAppPort,
+                withCommonArgs(clientAppPort, tracing, logDir.resolve("client-app-spans.jsonl"),
+                        "--spring.security.oauth2.client.provider.keycloak.issuer-uri=" + keycloak.issuer(),
+                        "--spring.security.oauth2.client.registration.keycloak.redirect-uri={baseUrl}/login/oauth2/code/{registrationId}",
+                        "--api-service-1.url=http://localhost:" + apiService1Port,
+                        "--spring.threads.virtual.enabled=" + virtualThreads),
+                STARTUP_TIMEOUT);
+
+        LoadGenerator generator = new LoadGenerator("http://localhost:" + clientAppPort,
+                concurrency, warmup, duration, requestTimeout);
+        List<LoadGenerator.Result> results = new ArrayList<>();
+        Map<String, Long> exchangesPerFlow = new HashMap<>();
+        for (String flow : flows) {
+            String path = FLOW_PATHS.get(flow);
+            if (path == null) {
+                throw new IllegalArgumentException("Unknown flow '" + flow + "', expected one of " + FLOW_PATHS.keySet());
+            }
+            logger.info("Running {} flow: {} users, {} warm-up, {} measured", flow, concurrency, warmup, duration);
+            long exchangesBefore = keycloak.tokenExchanges();
+            results.add(generator.run(flow, path));
+            exchangesPerFlow.put(flow, keycloak.tokenExchanges() - exchangesBefore);
+        }
+
+        report(results, exchangesPerFlow, keycloak.logins());
+        System.out.printf("client-app (%s threads): %s%n",
+                virtualThreads ? "virtual" : "platform", services.resourceUsage("client-app"));
+        services.close();
+        keycloak.close();
+        System.exit(0);
+    }
+
+    private static List<String> withCommonArgs(int port, String tracing, Path spanFile, String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--server.port=" + port,
+                "--tracing.exporter=" + tracing,
+                "--tracing.file=" + spanFile,
+                // Services sample a fraction by default; a traced run wants every request
+                "--management.tracing.sampling.probability=" + (tracing.equals("none") ? "0.1" : "1.0"),
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example=WARN",
+                "--logging.level.com.example.apiservice1=WARN",
+                "--logging.level.com.example.clientapp=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.web.reactive.function.client=WARN"));
+        all.addAll(List.of(args));
+        return all;
+    }
+
+    private static void report(List<LoadGenerator.Result> results, Map<String, Long> exchangesPerFlow, long logins) {
+        System.out.printf("%n%-17s %6s %10s %10s %8s %9s %9s %9s %9s %9s %10s%n",
+                "flow", "users", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                "exchanges");
+        for (LoadGenerator.Result result : results) {
+            System.out.printf("%-17s %6d %10d %10d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f %10d%n",
+                    result.flow(), result.concurrency(), result.latencies().length, result.errors(),
+                    result.throughput(),
+                    result.percentileMillis(50), result.percentileMillis(90), result.percentileMillis(99),
+                    result.percentileMillis(99.9), result.percentileMillis(100),
+                    exchangesPerFlow.getOrDefault(result.flow(), 0L));
+        }
+        System.out.printf("%nlogins: %d (token exchanges include warm-up)%n", logins);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
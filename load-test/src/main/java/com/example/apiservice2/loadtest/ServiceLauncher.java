@@ -0,0 +1,105 @@
+package com.example.apiservice2.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts a Spring Boot executable jar in a child JVM using this JVM's java binary. The three
+ * services can't share one JVM: they use the same package and class names, and both embedded
+ * Tomcats try to install the JVM-wide URL stream handler factory.
+ */
+final class ServiceLauncher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceLauncher.class);
+
+    private final Path logDir;
+    private final List<String> jvmArgs;
+    private final Map<String, Process> processes = new LinkedHashMap<>();
+
+    ServiceLauncher(Path logDir, List<String> jvmArgs) throws IOException {
+        this.logDir = Files.createDirectories(logDir);
+        this.jvmArgs = jvmArgs;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    void start(String name, Path jar, int port, List<String> args, Duration timeout) throws Exception {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException(name + " jar not found at " + jar + " (run mvn package first)");
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(args);
+
+        Path log = logDir.resolve(name + ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        processes.put(name, process);
+
+        awaitPort(name, port, timeout, process, log);
+        logger.info("{} started on port {} (pid {}, log {})", name, port, process.pid(), log);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Process process : processes.values()) {
+            process.destroy();
+        }
+        processes.clear();
+    }
+
+    /**
+     * Peak resident memory and current thread count of a started service, read from /proc (Linux only).
+     */
+    String resourceUsage(String name) {
+        Process process = processes.get(name);
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        try {
+            String peakRss = "?";
+            String threads = "?";
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    peakRss = line.substring("VmHWM:".length()).trim();
+                } else if (line.startsWith("Threads:")) {
+                    threads = line.substring("Threads:".length()).trim();
+                }
+            }
+            return "peak RSS " + peakRss + ", " + threads + " threads";
+        } catch (IOException e) {
+            return "resource usage not available (" + e.getMessage() + ")";
+        }
+    }
+
+    private static void awaitPort(String name, int port, Duration timeout, Process process, Path log)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue() + ", see " + log);
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 200);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+        throw new IllegalStateException(name + " did not start within " + timeout + ", see " + log);
+    }
+}
@@ -0,0 +1,85 @@
+#!/bin/bash
+# startup-comparison.sh - Startup time and RSS of each service on the JVM, on the JVM with AOT, and native
+#
+# Usage: ./startup-comparison.sh [runs]            (default 5 runs per service and mode)
+#   SERVICES="api-service-2 api-service-1"       services to measure; client-app also needs Keycloak
+#                                                 up, since it reads the issuer metadata at startup
+#   SKIP_BUILD=1                                  reuse the artifacts from a previous run
+#
+# The JVM and AOT modes run the same AOT-processed jar (mvn -Pnative package), with and without
+# -Dspring.aot.enabled=true. The native mode runs target/<service> from mvn -Pnative native:compile
+# and is skipped when GraalVM's native-image isn't on the PATH. Startup is the time from launch until
+# /actuator/health answers; RSS is read once it does. Results are the median over all runs.
+
+RUNS=${1:-5}
+SERVICES=${SERVICES:-"api-service-2 api-service-1"}
+OUT=target/startup-comparison
+
+cd "$(dirname "$0")"
+mkdir -p $OUT
+
+port_of() {
+    case $1 in
+        client-app) echo 8080 ;;
+        api-service-2) echo 8082 ;;
+        api-service-1) echo 8083 ;;
+    esac
+}
+
+# api-service-1 keeps its plain jar as the main artifact for the benchmarks module
+jar_of() {
+    if [ "$1" = api-service-1 ]; then echo $1/target/$1-0.0.1-SNAPSHOT-exec.jar; else echo $1/target/$1-0.0.1-SNAPSHOT.jar; fi
+}
+
+if [ -z "$SKIP_BUILD" ]; then
+    echo "Building AOT-processed jars..."
+    mvn -B -q -Pnative package -DskipTests || exit 1
+    if command -v native-image >/dev/null; then
+        echo "Building native executables..."
+        mvn -B -q -Pnative native:compile -DskipTests -pl $(echo $SERVICES | tr ' ' ',') || exit 1
+    fi
+fi
+
+# Prints "<startup ms> <rss KB>" for one start of the given command
+measure() {
+    local port=$1 log=$2; shift 2
+    local start=$(date +%s%N)
+    "$@" --server.port=$port > $log 2>&1 &
+    local pid=$!
+    until curl -s -o /dev/null "http://localhost:$port/actuator/health"; do
+        if ! kill -0 $pid 2>/dev/null; then echo "failed"; return; fi
+        sleep 0.02
+    done
+    local ready=$(( ($(date +%s%N) - start) / 1000000 ))
+    local rss=$(ps -o rss= -p $pid | tr -d ' ')
+    kill $pid; wait $pid 2>/dev/null
+    echo "$ready $rss"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+printf "\n%-15s %-8s %12s %10s\n" "service" "mode" "startup ms" "RSS MB"
+for service in $SERVICES; do
+    port=$(port_of $service)
+    jar=$(jar_of $service)
+    for mode in jvm aot native; do
+        case $mode in
+            jvm) cmd=(java -jar $jar) ;;
+            aot) cmd=(java -Dspring.aot.enabled=true -jar $jar) ;;
+            native) [ -x $service/target/$service ] || continue; cmd=($service/target/$service) ;;
+        esac
+        : > $OUT/$service-$mode.txt
+        for run in $(seq $RUNS); do
+            measure $port $OUT/$service-$mode-$run.log "${cmd[@]}" >> $OUT/$service-$mode.txt
+        done
+        if grep -q failed $OUT/$service-$mode.txt; then
+            printf "%-15s %-8s %12s %10s  (see $OUT/$service-$mode-*.log)\n" $service $mode failed -
+            continue
+        fi
+        startup=$(awk '{ print $1 }' $OUT/$service-$mode.txt | median)
+        rss=$(awk '{ print $2 }' $OUT/$service-$mode.txt | median)
+        printf "%-15s %-8s %12s %10s\n" $service $mode $startup $(( rss / 1024 ))
+    done
+done